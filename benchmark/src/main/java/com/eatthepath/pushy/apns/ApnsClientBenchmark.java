@@ -39,6 +39,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @State(Scope.Thread)
 public class ApnsClientBenchmark {
@@ -47,8 +50,11 @@ public class ApnsClientBenchmark {
     private NioEventLoopGroup serverEventLoopGroup;
 
     private ApnsClient client;
+    private BlockingApnsClient blockingClient;
     private BenchmarkApnsServer server;
 
+    private ExecutorService blockingSenderExecutorService;
+
     private List<SimpleApnsPushNotification> pushNotifications;
 
     @Param({"10000"})
@@ -72,6 +78,10 @@ public class ApnsClientBenchmark {
 
     private static final int KEY_SIZE = 256;
 
+    // Approximates a thread-per-request application in which many request threads each send a notification and wait
+    // for the result
+    private static final int BLOCKING_SENDER_THREADS = 256;
+
     @Setup
     public void setUp() throws Exception {
         this.clientResources = new ApnsClientResources(new NioEventLoopGroup(this.concurrentConnections));
@@ -91,8 +101,13 @@ public class ApnsClientBenchmark {
                 .setSigningKey(signingKey)
                 .setTrustedServerCertificateChain(ApnsClientBenchmark.class.getResourceAsStream(CA_CERTIFICATE_FILENAME))
                 .setApnsClientResources(this.clientResources)
+                // The benchmark server's certificate doesn't name "localhost"
+                .setHostnameVerificationEnabled(false)
                 .build();
 
+        this.blockingClient = new BlockingApnsClient(this.client, BLOCKING_SENDER_THREADS);
+        this.blockingSenderExecutorService = Executors.newFixedThreadPool(BLOCKING_SENDER_THREADS);
+
         this.server = new BenchmarkApnsServerBuilder()
                 .setServerCredentials(getClass().getResourceAsStream(SERVER_CERTIFICATES_FILENAME), this.getClass().getResourceAsStream(SERVER_KEY_FILENAME), null)
                 .setTrustedClientCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
@@ -130,8 +145,39 @@ public class ApnsClientBenchmark {
         return countDownLatch.getCount();
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Threads(1)
+    @Measurement(iterations = 20, batchSize = 1)
+    @Warmup(iterations = 20, batchSize = 1)
+    public long testSendNotificationsBlocking() throws InterruptedException {
+        final CountDownLatch countDownLatch = new CountDownLatch(this.pushNotifications.size());
+
+        for (int i = 0; i < BLOCKING_SENDER_THREADS; i++) {
+            final int firstNotificationIndex = i;
+
+            this.blockingSenderExecutorService.execute(() -> {
+                for (int j = firstNotificationIndex; j < this.pushNotifications.size(); j += BLOCKING_SENDER_THREADS) {
+                    try {
+                        this.blockingClient.sendNotification(this.pushNotifications.get(j));
+                    } catch (final InterruptedException e) {
+                        return;
+                    } catch (final ExecutionException ignored) {
+                    }
+
+                    countDownLatch.countDown();
+                }
+            });
+        }
+
+        countDownLatch.await();
+        return countDownLatch.getCount();
+    }
+
     @TearDown
     public void tearDown() throws Exception {
+        this.blockingSenderExecutorService.shutdownNow();
+
         this.client.close().get();
         this.server.shutdown().get();
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.ApnsPayloadBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the cost of encoding notification payloads into heap buffers wrapped around a new byte array (the default
+ * behavior) with the cost of encoding payloads directly into pooled, direct buffers.
+ */
+@State(Scope.Thread)
+public class PayloadBufferBenchmark {
+
+    private ByteBufAllocator allocator;
+
+    private String payload;
+
+    @Param({"256", "2048"})
+    public int messageBodyLength;
+
+    @Param({"true", "false"})
+    public boolean asciiOnly;
+
+    @Setup
+    public void setUp() {
+        this.allocator = PooledByteBufAllocator.DEFAULT;
+
+        final String messageBody = this.asciiOnly ?
+                RandomStringUtils.randomAlphanumeric(this.messageBodyLength) :
+                RandomStringUtils.random(this.messageBodyLength, 0x4e00, 0x9fff, true, true);
+
+        this.payload = new ApnsPayloadBuilder()
+                .setAlertBody(messageBody)
+                .build();
+    }
+
+    @Benchmark
+    public int testHeapWrapped() {
+        final ByteBuf payloadBuffer = Unpooled.wrappedBuffer(this.payload.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            return payloadBuffer.readableBytes();
+        } finally {
+            payloadBuffer.release();
+        }
+    }
+
+    /**
+     * Simulates the extra copy TLS engines that require direct buffers (i.e. OpenSSL) must make when they receive a
+     * heap buffer.
+     */
+    @Benchmark
+    public int testHeapWrappedCopiedToDirect() {
+        final ByteBuf payloadBuffer = Unpooled.wrappedBuffer(this.payload.getBytes(StandardCharsets.UTF_8));
+        final ByteBuf directBuffer = this.allocator.directBuffer(payloadBuffer.readableBytes());
+
+        try {
+            directBuffer.writeBytes(payloadBuffer);
+            return directBuffer.readableBytes();
+        } finally {
+            payloadBuffer.release();
+            directBuffer.release();
+        }
+    }
+
+    @Benchmark
+    public int testPooledDirect() {
+        final ByteBuf payloadBuffer = this.allocator.directBuffer(ByteBufUtil.utf8Bytes(this.payload));
+
+        try {
+            ByteBufUtil.writeUtf8(payloadBuffer, this.payload);
+            return payloadBuffer.readableBytes();
+        } finally {
+            payloadBuffer.release();
+        }
+    }
+}
@@ -71,4 +71,11 @@ public class ApnsPayloadBuilderBenchmark {
         this.payloadBuilder.setAlertBody(this.messageBody);
         return this.payloadBuilder.build();
     }
+
+    @Benchmark
+    public String testBuildWithThreadLocalBuilder() {
+        return ApnsPayloadBuilder.getThreadLocalInstance()
+                .setAlertBody(this.messageBody)
+                .build();
+    }
 }
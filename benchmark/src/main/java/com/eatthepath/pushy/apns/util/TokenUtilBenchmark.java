@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+@State(Scope.Thread)
+public class TokenUtilBenchmark {
+
+    @Param({"true", "false"})
+    public boolean describedTokens;
+
+    private String tokenString;
+
+    private String tokenStrings;
+    private ByteBuffer tokenStringBuffer;
+
+    private static final int TOKEN_COUNT = 1000;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random();
+        final StringBuilder tokenStringsBuilder = new StringBuilder();
+
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            final byte[] tokenBytes = new byte[32];
+            random.nextBytes(tokenBytes);
+
+            final String hexString = DeviceToken.fromBytes(tokenBytes).toString();
+            final String tokenString;
+
+            if (this.describedTokens) {
+                // Mimic the output of [NSData describe], i.e. "<0123abcd 4567ef01 ...>"
+                final StringBuilder describedTokenBuilder = new StringBuilder("<");
+
+                for (int j = 0; j < hexString.length(); j += 8) {
+                    if (j > 0) {
+                        describedTokenBuilder.append(' ');
+                    }
+
+                    describedTokenBuilder.append(hexString, j, j + 8);
+                }
+
+                tokenString = describedTokenBuilder.append('>').toString();
+            } else {
+                tokenString = hexString;
+            }
+
+            if (i == 0) {
+                this.tokenString = tokenString;
+            }
+
+            tokenStringsBuilder.append(tokenString).append('\n');
+        }
+
+        this.tokenStrings = tokenStringsBuilder.toString();
+        this.tokenStringBuffer = ByteBuffer.wrap(this.tokenStrings.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public String testSanitizeTokenStringWithRegex() {
+        return this.tokenString.replaceAll("[^a-fA-F0-9]", "");
+    }
+
+    @Benchmark
+    public String testSanitizeTokenString() {
+        return TokenUtil.sanitizeTokenString(this.tokenString);
+    }
+
+    @Benchmark
+    public DeviceToken testSanitizeAndParseTokenString() {
+        return DeviceToken.fromHexString(TokenUtil.sanitizeTokenString(this.tokenString));
+    }
+
+    @Benchmark
+    public byte[] testDecodeTokenString() {
+        return TokenUtil.decodeTokenString(this.tokenString);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKEN_COUNT)
+    public int testDecodeTokenStrings(final Blackhole blackhole) {
+        return TokenUtil.decodeTokenStrings(this.tokenStrings, blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOKEN_COUNT)
+    public int testDecodeTokenStringBuffer(final Blackhole blackhole) {
+        return TokenUtil.decodeTokenStrings(this.tokenStringBuffer, blackhole::consume);
+    }
+}
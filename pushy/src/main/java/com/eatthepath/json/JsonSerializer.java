@@ -1,5 +1,7 @@
 package com.eatthepath.json;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
@@ -224,6 +226,138 @@ public class JsonSerializer {
         }
     }
 
+    /**
+     * Writes the given {@link Map} as a UTF-8-encoded JSON object to the given {@link ByteBuf}, starting at the buffer's
+     * current writer index. Writing directly to a buffer avoids building an intermediate {@code String}; callers that
+     * serialize many texts may wish to write each text to the same (cleared) buffer to avoid repeated allocation. Note
+     * that the keys of the given map will be represented as {@code Strings} (via their
+     * {@link Object#toString() toString} method) regardless of their actual type.
+     *
+     * @param map the map to write as a JSON text
+     * @param out the buffer to which to write the UTF-8-encoded JSON text
+     *
+     * @return the number of bytes written to the given buffer
+     *
+     * @since 0.16
+     */
+    public static int writeJsonText(final Map<?, ?> map, final ByteBuf out) {
+        final int initialWriterIndex = out.writerIndex();
+
+        try {
+            writeJsonText(map, new Utf8ByteBufAppendable(out));
+        } catch (final IOException e) {
+            // This should never happen for a Utf8ByteBufAppendable
+            throw new RuntimeException(e);
+        }
+
+        return out.writerIndex() - initialWriterIndex;
+    }
+
+    /**
+     * Writes the given {@link Collection} as a UTF-8-encoded JSON list to the given {@link ByteBuf}, starting at the
+     * buffer's current writer index.
+     *
+     * @param collection the collection to write as a JSON text
+     * @param out the buffer to which to write the UTF-8-encoded JSON text
+     *
+     * @return the number of bytes written to the given buffer
+     *
+     * @see #writeJsonText(Map, ByteBuf)
+     *
+     * @since 0.16
+     */
+    public static int writeJsonText(final Collection<?> collection, final ByteBuf out) {
+        final int initialWriterIndex = out.writerIndex();
+
+        try {
+            writeJsonText(collection, new Utf8ByteBufAppendable(out));
+        } catch (final IOException e) {
+            // This should never happen for a Utf8ByteBufAppendable
+            throw new RuntimeException(e);
+        }
+
+        return out.writerIndex() - initialWriterIndex;
+    }
+
+    /**
+     * Returns the length, in bytes, of the UTF-8-encoded JSON text that would represent the given {@link Map}. The JSON
+     * text is never actually assembled; characters are counted as they're produced by the serializer.
+     *
+     * @param map the map for which to calculate the length of a UTF-8-encoded JSON text
+     *
+     * @return the length, in bytes, of the UTF-8-encoded JSON text that would represent the given map
+     *
+     * @see #writeJsonText(Map, ByteBuf)
+     *
+     * @since 0.16
+     */
+    public static int getUtf8EncodedLength(final Map<?, ?> map) {
+        final Utf8LengthCountingAppendable countingAppendable = new Utf8LengthCountingAppendable();
+
+        try {
+            writeJsonText(map, countingAppendable);
+        } catch (final IOException e) {
+            // This should never happen for a Utf8LengthCountingAppendable
+            throw new RuntimeException(e);
+        }
+
+        return countingAppendable.getLength();
+    }
+
+    /**
+     * Returns the length, in bytes, of the UTF-8-encoded JSON text that would represent the given {@link Collection}.
+     * The JSON text is never actually assembled; characters are counted as they're produced by the serializer.
+     *
+     * @param collection the collection for which to calculate the length of a UTF-8-encoded JSON text
+     *
+     * @return the length, in bytes, of the UTF-8-encoded JSON text that would represent the given collection
+     *
+     * @see #writeJsonText(Collection, ByteBuf)
+     *
+     * @since 0.16
+     */
+    public static int getUtf8EncodedLength(final Collection<?> collection) {
+        final Utf8LengthCountingAppendable countingAppendable = new Utf8LengthCountingAppendable();
+
+        try {
+            writeJsonText(collection, countingAppendable);
+        } catch (final IOException e) {
+            // This should never happen for a Utf8LengthCountingAppendable
+            throw new RuntimeException(e);
+        }
+
+        return countingAppendable.getLength();
+    }
+
+    /**
+     * Returns the length of the escape sequence this serializer writes for the given character when it appears in a
+     * JSON string, or zero if the character does not need to be escaped. Escape sequences consist only of ASCII
+     * characters, so the length is the same in characters and in UTF-8-encoded bytes.
+     *
+     * @param c the character for which to calculate the length of an escape sequence
+     *
+     * @return the length of the escape sequence for the given character, or zero if the character does not need to be
+     * escaped
+     *
+     * @since 0.16
+     */
+    public static int getEscapedCharacterLength(final char c) {
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+            case '\b':
+            case '\f':
+            case '\n':
+            case '\r':
+            case '\t':
+                return 2;
+
+            default:
+                return Character.isISOControl(c) ? 6 : 0;
+        }
+    }
+
     /**
      * Writes the given array of {@code bytes} as a JSON list to the given {@link Appendable}.
      *
@@ -705,9 +839,7 @@ public class JsonSerializer {
             for (int i = 0; i < string.length(); i++) {
                 final char c = string.charAt(i);
 
-                if (c == '"' || c == '\\' || c == '/' || c == '\b' || c == '\f' || c == '\n' || c == '\r' || c == '\t' ||
-                        Character.isISOControl(c)) {
-
+                if (getEscapedCharacterLength(c) > 0) {
                     out.append(string, start, i);
                     appendEscapedCharacter(c, out);
 
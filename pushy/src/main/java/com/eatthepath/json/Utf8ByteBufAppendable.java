@@ -0,0 +1,83 @@
+package com.eatthepath.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.util.Objects;
+
+/**
+ * An {@link Appendable} that writes UTF-8-encoded characters directly to a {@link ByteBuf}. Runs of ASCII characters
+ * (which account for almost all of a typical JSON text) are copied directly to the buffer's backing array when one is
+ * available.
+ */
+class Utf8ByteBufAppendable implements Appendable {
+
+    private final ByteBuf out;
+
+    Utf8ByteBufAppendable(final ByteBuf out) {
+        this.out = Objects.requireNonNull(out, "Buffer must not be null.");
+    }
+
+    @Override
+    public Appendable append(final CharSequence charSequence) {
+        return charSequence == null ? append("null") : append(charSequence, 0, charSequence.length());
+    }
+
+    @Override
+    public Appendable append(final CharSequence charSequence, final int start, final int end) {
+        if (charSequence == null) {
+            return append("null", start, end);
+        }
+
+        if (start < 0 || end > charSequence.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + charSequence.length());
+        }
+
+        if (isAscii(charSequence, start, end)) {
+            final int length = end - start;
+            this.out.ensureWritable(length);
+
+            final int writerIndex = this.out.writerIndex();
+
+            if (this.out.hasArray()) {
+                final byte[] array = this.out.array();
+                final int offset = this.out.arrayOffset() + writerIndex - start;
+
+                for (int i = start; i < end; i++) {
+                    array[offset + i] = (byte) charSequence.charAt(i);
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    this.out.setByte(writerIndex + i - start, charSequence.charAt(i));
+                }
+            }
+
+            this.out.writerIndex(writerIndex + length);
+        } else {
+            ByteBufUtil.writeUtf8(this.out, charSequence, start, end);
+        }
+
+        return this;
+    }
+
+    @Override
+    public Appendable append(final char c) {
+        if (c < 0x80) {
+            this.out.writeByte(c);
+        } else {
+            ByteBufUtil.writeUtf8(this.out, String.valueOf(c));
+        }
+
+        return this;
+    }
+
+    private static boolean isAscii(final CharSequence charSequence, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (charSequence.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package com.eatthepath.json;
+
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * An {@link Appendable} that discards everything appended to it, but keeps track of the number of bytes that would be
+ * needed to represent the appended characters as UTF-8. Unpaired surrogates are counted as a single byte, consistent
+ * with {@link String#getBytes(java.nio.charset.Charset)} and {@link ByteBufUtil#writeUtf8(io.netty.buffer.ByteBuf, CharSequence)}.
+ */
+class Utf8LengthCountingAppendable implements Appendable {
+
+    private int length = 0;
+
+    @Override
+    public Appendable append(final CharSequence charSequence) {
+        return charSequence == null ? append("null") : append(charSequence, 0, charSequence.length());
+    }
+
+    @Override
+    public Appendable append(final CharSequence charSequence, final int start, final int end) {
+        if (charSequence == null) {
+            return append("null", start, end);
+        }
+
+        this.length += ByteBufUtil.utf8Bytes(charSequence, start, end);
+        return this;
+    }
+
+    @Override
+    public Appendable append(final char c) {
+        if (c < 0x80 || Character.isSurrogate(c)) {
+            this.length += 1;
+        } else if (c < 0x800) {
+            this.length += 2;
+        } else {
+            this.length += 3;
+        }
+
+        return this;
+    }
+
+    int getLength() {
+        return this.length;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A minimal, immutable implementation of the {@link PushNotificationResponse} interface for notifications accepted by
+ * the APNs server. Accepted responses never carry rejection details, so this implementation holds only the push
+ * notification and the raw values of the response's identifier headers, which are decoded the first time they're
+ * requested.
+ */
+class AcceptedPushNotificationResponse<T extends ApnsPushNotification> extends BasePushNotificationResponse<T> {
+
+    AcceptedPushNotificationResponse(final T pushNotification, final CharSequence apnsIdSequence, final CharSequence apnsUniqueIdSequence) {
+        super(pushNotification, apnsIdSequence, apnsUniqueIdSequence);
+    }
+
+    @Override
+    public boolean isAccepted() {
+        return true;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return HttpResponseStatus.OK.code();
+    }
+
+    @Override
+    public Optional<String> getRejectionReason() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<ApnsRejectionReason> getApnsRejectionReason() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Instant> getTokenInvalidationTimestamp() {
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "AcceptedPushNotificationResponse{" +
+                "pushNotification=" + getPushNotification() +
+                ", apnsId=" + getApnsId() +
+                ", apnsUniqueId=" + getApnsUniqueId() +
+                '}';
+    }
+}
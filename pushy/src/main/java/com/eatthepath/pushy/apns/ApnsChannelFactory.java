@@ -33,7 +33,9 @@ import io.netty.resolver.AddressResolverGroup;
 import io.netty.resolver.NoopAddressResolverGroup;
 import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.Promise;
 import io.netty.util.concurrent.PromiseNotifier;
 
@@ -41,8 +43,13 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
 import java.io.Closeable;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -56,10 +63,24 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
 
     private final AddressResolverGroup<? extends SocketAddress> addressResolverGroup;
 
+    private final AuthenticationTokenProvider authenticationTokenProvider;
+    private final boolean shouldCloseAuthenticationTokenProvider;
+
+    private final Class<? extends SocketChannel> socketChannelClass;
+
     private final Bootstrap bootstrapTemplate;
 
+    // The event loops to which this factory assigns new channels, and the number of open (or opening) channels assigned
+    // to each
+    private final List<EventLoop> eventLoops;
+    private final AtomicIntegerArray channelsPerEventLoop;
+
     private final AtomicLong currentDelaySeconds = new AtomicLong(0);
 
+    // Factories that share an event loop group start assigning channels at different event loops so that small pools
+    // don't all crowd onto the first few event loops in the group
+    private static final AtomicInteger NEXT_EVENT_LOOP_OFFSET = new AtomicInteger(0);
+
     private static final long MIN_CONNECT_DELAY_SECONDS = 1;
     private static final long MAX_CONNECT_DELAY_SECONDS = 60;
 
@@ -69,6 +90,19 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
     ApnsChannelFactory(final ApnsClientConfiguration clientConfiguration,
                        final ApnsClientResources clientResources) {
 
+        this(clientConfiguration, clientResources, clientResources.getEventLoopGroup(), null);
+    }
+
+    /**
+     * Constructs a new channel factory that registers new channels with the given event loop group (which must belong
+     * to the given client resources) and, if not {@code null}, uses the given authentication token provider instead
+     * of creating its own. Shared authentication token providers are not closed when this factory is closed.
+     */
+    ApnsChannelFactory(final ApnsClientConfiguration clientConfiguration,
+                       final ApnsClientResources clientResources,
+                       final EventLoopGroup channelEventLoopGroup,
+                       final AuthenticationTokenProvider sharedAuthenticationTokenProvider) {
+
         this.sslContext = clientConfiguration.getSslContext();
 
         if (this.sslContext instanceof ReferenceCounted) {
@@ -79,8 +113,29 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
             ? NoopAddressResolverGroup.INSTANCE
             : clientResources.getRoundRobinDnsAddressResolverGroup();
 
+        if (sharedAuthenticationTokenProvider != null) {
+            this.authenticationTokenProvider = sharedAuthenticationTokenProvider;
+            this.shouldCloseAuthenticationTokenProvider = false;
+        } else {
+            this.authenticationTokenProvider = clientConfiguration.getSigningKey()
+                    .map(signingKey -> new AuthenticationTokenProvider(signingKey, clientConfiguration.getTokenExpiration(),
+                            clientResources.getEventLoopGroup().next()))
+                    .orElse(null);
+
+            this.shouldCloseAuthenticationTokenProvider = true;
+        }
+
+        // Individual event loops don't map to channel classes, so always choose a channel class based on the resources'
+        // event loop group
+        this.socketChannelClass = ClientChannelClassUtil.getSocketChannelClass(clientResources.getEventLoopGroup());
+
+        this.eventLoops = Collections.unmodifiableList(
+                selectEventLoops(channelEventLoopGroup, clientConfiguration.getConcurrentConnections()));
+
+        this.channelsPerEventLoop = new AtomicIntegerArray(this.eventLoops.size());
+
         this.bootstrapTemplate = new Bootstrap();
-        this.bootstrapTemplate.group(clientResources.getEventLoopGroup());
+        this.bootstrapTemplate.group(channelEventLoopGroup);
         this.bootstrapTemplate.option(ChannelOption.TCP_NODELAY, true);
         this.bootstrapTemplate.remoteAddress(clientConfiguration.getApnsServerAddress());
         this.bootstrapTemplate.resolver(this.addressResolverGroup);
@@ -106,16 +161,16 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
                 {
                     final ApnsClientHandler.ApnsClientHandlerBuilder clientHandlerBuilder;
 
-                    if (clientConfiguration.getSigningKey().isPresent()) {
+                    if (authenticationTokenProvider != null) {
                         clientHandlerBuilder = new TokenAuthenticationApnsClientHandler.TokenAuthenticationApnsClientHandlerBuilder()
-                                .signingKey(clientConfiguration.getSigningKey().get())
-                                .tokenExpiration(clientConfiguration.getTokenExpiration())
+                                .authenticationTokenProvider(authenticationTokenProvider)
                                 .authority(authority);
                     } else {
                         clientHandlerBuilder = new ApnsClientHandler.ApnsClientHandlerBuilder()
                                 .authority(authority);
                     }
 
+                    clientHandlerBuilder.usePooledDirectPayloadBuffers(clientConfiguration.isUsePooledDirectPayloadBuffers());
                     clientConfiguration.getFrameLogger().ifPresent(clientHandlerBuilder::frameLogger);
 
                     apnsClientHandler = clientHandlerBuilder.build();
@@ -137,9 +192,69 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
         });
     }
 
+    /**
+     * Chooses up to {@code maxEventLoops} event loops from the given group. There's no benefit to spreading a pool's
+     * channels across more event loops than the pool has channels, and choosing a fixed set of event loops up front
+     * guarantees that every chosen event loop will host at least one channel when the pool is full.
+     */
+    private static List<EventLoop> selectEventLoops(final EventLoopGroup eventLoopGroup, final int maxEventLoops) {
+        final List<EventLoop> allEventLoops = new ArrayList<>();
+
+        for (final EventExecutor executor : eventLoopGroup) {
+            allEventLoops.add((EventLoop) executor);
+        }
+
+        final int eventLoopCount = Math.max(maxEventLoops, 1);
+
+        if (allEventLoops.size() <= eventLoopCount) {
+            return allEventLoops;
+        }
+
+        final int offset = Math.floorMod(NEXT_EVENT_LOOP_OFFSET.getAndAdd(eventLoopCount), allEventLoops.size());
+        final List<EventLoop> selectedEventLoops = new ArrayList<>(eventLoopCount);
+
+        for (int i = 0; i < eventLoopCount; i++) {
+            selectedEventLoops.add(allEventLoops.get((offset + i) % allEventLoops.size()));
+        }
+
+        return selectedEventLoops;
+    }
+
+    /**
+     * Returns the event loops to which this factory assigns new channels.
+     *
+     * @return the event loops to which this factory assigns new channels
+     */
+    List<EventLoop> getEventLoops() {
+        return this.eventLoops;
+    }
+
+    /**
+     * Reserves a slot on the event loop with the fewest open (or opening) channels from this factory. Ties go to the
+     * event loop that appears first in this factory's list of event loops.
+     */
+    private int reserveLeastLoadedEventLoop() {
+        int leastLoadedIndex = 0;
+        int fewestChannels = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.channelsPerEventLoop.length(); i++) {
+            final int channels = this.channelsPerEventLoop.get(i);
+
+            if (channels < fewestChannels) {
+                leastLoadedIndex = i;
+                fewestChannels = channels;
+            }
+        }
+
+        this.channelsPerEventLoop.incrementAndGet(leastLoadedIndex);
+
+        return leastLoadedIndex;
+    }
+
     /**
      * Creates and connects a new channel. The initial connection attempt may be delayed to accommodate exponential
-     * back-off requirements.
+     * back-off requirements. New channels are pinned to whichever of this factory's event loops currently has the
+     * fewest channels.
      *
      * @param channelReadyPromise the promise to be notified when a channel has been created and connected to the APNs
      * server
@@ -150,18 +265,26 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
     public Future<Channel> create(final Promise<Channel> channelReadyPromise) {
         final long delay = this.currentDelaySeconds.get();
 
-        channelReadyPromise.addListener(future -> {
+        final int eventLoopIndex = this.reserveLeastLoadedEventLoop();
+        final EventLoop eventLoop = this.eventLoops.get(eventLoopIndex);
+
+        channelReadyPromise.addListener((GenericFutureListener<Future<Channel>>) future -> {
             final long updatedDelay = future.isSuccess() ? 0 :
                     Math.max(Math.min(delay * 2, MAX_CONNECT_DELAY_SECONDS), MIN_CONNECT_DELAY_SECONDS);
 
             ApnsChannelFactory.this.currentDelaySeconds.compareAndSet(delay, updatedDelay);
-        });
 
+            if (future.isSuccess()) {
+                future.getNow().closeFuture().addListener(closeFuture ->
+                        ApnsChannelFactory.this.channelsPerEventLoop.decrementAndGet(eventLoopIndex));
+            } else {
+                ApnsChannelFactory.this.channelsPerEventLoop.decrementAndGet(eventLoopIndex);
+            }
+        });
 
-        this.bootstrapTemplate.config().group().schedule(() -> {
-            final Bootstrap bootstrap = ApnsChannelFactory.this.bootstrapTemplate.clone()
-                    .channelFactory(new AugmentingReflectiveChannelFactory<>(
-                            ClientChannelClassUtil.getSocketChannelClass(ApnsChannelFactory.this.bootstrapTemplate.config().group()),
+        eventLoop.schedule(() -> {
+            final Bootstrap bootstrap = ApnsChannelFactory.this.bootstrapTemplate.clone(eventLoop)
+                    .channelFactory(new AugmentingReflectiveChannelFactory<>(ApnsChannelFactory.this.socketChannelClass,
                             CHANNEL_READY_PROMISE_ATTRIBUTE_KEY, channelReadyPromise));
 
             final ChannelFuture connectFuture = bootstrap.connect();
@@ -193,6 +316,10 @@ class ApnsChannelFactory implements PooledObjectFactory<Channel>, Closeable {
     @Override
     public void close() {
         try {
+            if (this.authenticationTokenProvider != null && this.shouldCloseAuthenticationTokenProvider) {
+                this.authenticationTokenProvider.close();
+            }
+
             this.addressResolverGroup.close();
         } finally {
             if (this.sslContext instanceof ReferenceCounted) {
@@ -31,9 +31,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * <p>A pool of channels connected to an APNs server. Channel pools use a {@link ApnsChannelFactory} to create
@@ -43,6 +47,16 @@ import java.util.Set;
  * the pool with the {@link ApnsChannelPool#release(Channel)} method. When channels are acquired, they are unavailable
  * to other callers until they are released back into the pool.</p>
  *
+ * <p>When more than one channel is available, pools prefer the channel with the most spare HTTP/2 stream capacity
+ * (i.e. the channel with the largest difference between the server's {@code SETTINGS_MAX_CONCURRENT_STREAMS} limit and
+ * the number of notifications already in flight).</p>
+ *
+ * <p>Channel pools may optionally use lock-free channel selection. In that mode, once the pool has reached capacity,
+ * channels are shared rather than exclusively acquired; {@link ApnsChannelPool#acquire()} selects a ready channel
+ * directly from a snapshot of all ready channels (preferring the less loaded of two randomly-chosen channels) without a
+ * round trip through the pool's executor, and {@link ApnsChannelPool#release(Channel)} has no effect. Channel creation
+ * and disposal are still serialized on the pool's executor.</p>
+ *
  * <p>Channel pools are intended to be long-lived, persistent resources. When an application no longer needs a channel
  * pool (presumably because it is shutting down), it must shut down the channel pool via the
  * {@link ApnsChannelPool#close()} method.</p>
@@ -54,12 +68,17 @@ class ApnsChannelPool {
     private final PooledObjectFactory<Channel> channelFactory;
     private final OrderedEventExecutor executor;
     private final int capacity;
+    private final boolean lockFreeChannelSelection;
 
     private final ApnsChannelPoolMetricsListener metricsListener;
 
     private final ChannelGroup allChannels;
     private final Queue<Channel> idleChannels = new ArrayDeque<>();
 
+    // A copy-on-write snapshot of all channels that have been created by this pool and not yet discarded; only
+    // maintained when lock-free channel selection is enabled, and only modified by the pool's executor
+    private volatile Channel[] readyChannels = new Channel[0];
+
     private final Set<Future<Channel>> pendingCreateChannelFutures = new HashSet<>();
     private final Queue<Promise<Channel>> pendingAcquisitionPromises = new ArrayDeque<>();
 
@@ -95,9 +114,25 @@ class ApnsChannelPool {
      * @param metricsListener an optional listener for metrics describing the performance and behavior of the pool
      */
     ApnsChannelPool(final PooledObjectFactory<Channel> channelFactory, final int capacity, final OrderedEventExecutor executor, final ApnsChannelPoolMetricsListener metricsListener) {
+        this(channelFactory, capacity, executor, metricsListener, false);
+    }
+
+    /**
+     * Constructs a new channel pool that will create new channels with the given {@code channelFactory} and has the
+     * given maximum channel {@code capacity}.
+     *
+     * @param channelFactory the factory to be used to create new channels
+     * @param capacity the maximum number of channels that may be held in this pool
+     * @param executor the executor on which listeners for acquisition/release promises will be called
+     * @param metricsListener an optional listener for metrics describing the performance and behavior of the pool
+     * @param lockFreeChannelSelection if {@code true}, channels will be shared among callers and selected without a
+     * round trip through the pool's executor once the pool has reached capacity
+     */
+    ApnsChannelPool(final PooledObjectFactory<Channel> channelFactory, final int capacity, final OrderedEventExecutor executor, final ApnsChannelPoolMetricsListener metricsListener, final boolean lockFreeChannelSelection) {
         this.channelFactory = channelFactory;
         this.capacity = capacity;
         this.executor = executor;
+        this.lockFreeChannelSelection = lockFreeChannelSelection;
 
         this.metricsListener = metricsListener != null ? metricsListener : new NoopChannelPoolMetricsListener();
 
@@ -112,18 +147,49 @@ class ApnsChannelPool {
      * <p>When callers are done with a channel, they <em>must</em> release the channel back to the pool via the
      * {@link ApnsChannelPool#release(Channel)} method.</p>
      *
+     * <p>If lock-free channel selection is enabled and the pool has reached capacity, the returned {@code Future} will
+     * already be complete, and its listeners will be notified immediately on the calling thread.</p>
+     *
      * @return a {@code Future} that will be notified when a channel is available
      *
      * @see ApnsChannelPool#release(Channel)
      */
     Future<Channel> acquire() {
+        return this.acquire(null);
+    }
+
+    /**
+     * Asynchronously acquires a channel from this channel pool, preferring channels other than the given channel if any
+     * are available. Callers retrying an operation that failed on one channel may use this method to try a different
+     * channel instead. Please see {@link #acquire()} for additional details.
+     *
+     * @param channelToAvoid a channel to avoid if any other channels are available; may be {@code null}
+     *
+     * @return a {@code Future} that will be notified when a channel is available
+     */
+    Future<Channel> acquire(final Channel channelToAvoid) {
+        if (this.lockFreeChannelSelection) {
+            final Channel[] channels = this.readyChannels;
+
+            // Until the pool is full, we want to take the slow path so new channels get created. Closed channels drop
+            // out of the channel group on their own, but linger in the snapshot until the slow path discards them, so
+            // the group's size tells us whether we need to replace a channel that has closed since we last looked.
+            if (channels.length >= this.capacity && this.allChannels.size() >= this.capacity) {
+                final Channel channel = selectChannel(channels, channelToAvoid);
+
+                if (channel.isActive()) {
+                    return ImmediateEventExecutor.INSTANCE.newSucceededFuture(channel);
+                }
+            }
+        }
+
         final Promise<Channel> acquirePromise = new DefaultPromise<>(this.executor);
 
         if (this.executor.inEventLoop()) {
-            this.acquireWithinEventExecutor(acquirePromise);
+            this.acquireWithinEventExecutor(acquirePromise, channelToAvoid);
         } else {
             this.executor.submit(() ->
-                    ApnsChannelPool.this.acquireWithinEventExecutor(acquirePromise)).addListener(future -> {
+                    ApnsChannelPool.this.acquireWithinEventExecutor(acquirePromise, channelToAvoid)).addListener(future -> {
                 if (!future.isSuccess()) {
                     acquirePromise.tryFailure(future.cause());
                 }
@@ -134,9 +200,17 @@ class ApnsChannelPool {
     }
 
     private void acquireWithinEventExecutor(final Promise<Channel> acquirePromise) {
+        this.acquireWithinEventExecutor(acquirePromise, null);
+    }
+
+    private void acquireWithinEventExecutor(final Promise<Channel> acquirePromise, final Channel channelToAvoid) {
         assert this.executor.inEventLoop();
 
         if (!this.isClosed) {
+            if (this.lockFreeChannelSelection) {
+                this.discardInactiveReadyChannels();
+            }
+
             // We always want to open new channels if we have spare capacity. Once the pool is full, we'll start looking
             // for idle, pre-existing channels.
             if (this.allChannels.size() + this.pendingCreateChannelFutures.size() < this.capacity) {
@@ -153,7 +227,24 @@ class ApnsChannelPool {
                         ApnsChannelPool.this.metricsListener.handleConnectionAdded();
 
                         log.debug("Created channel {}", channel);
+
+                        if (ApnsChannelPool.this.lockFreeChannelSelection) {
+                            // Publish the new channel before handing it to the caller so anybody the caller triggers
+                            // to acquire a channel can take the fast path
+                            ApnsChannelPool.this.addReadyChannel(channel);
+                        }
+
                         acquirePromise.trySuccess(channel);
+
+                        if (ApnsChannelPool.this.lockFreeChannelSelection) {
+
+                            // Shared channels never get released back to the pool, so anybody waiting for a channel
+                            // can use the new one right away.
+                            for (int i = ApnsChannelPool.this.pendingAcquisitionPromises.size(); i > 0; i--) {
+                                ApnsChannelPool.this.acquireWithinEventExecutor(
+                                        ApnsChannelPool.this.pendingAcquisitionPromises.poll());
+                            }
+                        }
                     } else {
                         ApnsChannelPool.this.metricsListener.handleConnectionCreationFailed();
 
@@ -166,8 +257,18 @@ class ApnsChannelPool {
                         ApnsChannelPool.this.handleNextAcquisition();
                     }
                 });
+            } else if (this.lockFreeChannelSelection) {
+                final Channel[] channels = this.readyChannels;
+
+                if (channels.length > 0) {
+                    acquirePromise.trySuccess(selectChannel(channels, channelToAvoid));
+                } else {
+                    // All of our capacity is tied up in channels that are still being created; wait for one to
+                    // become available.
+                    pendingAcquisitionPromises.add(acquirePromise);
+                }
             } else {
-                final Channel channelFromIdlePool = ApnsChannelPool.this.idleChannels.poll();
+                final Channel channelFromIdlePool = this.pollLeastLoadedIdleChannel(channelToAvoid);
 
                 if (channelFromIdlePool != null) {
                     if (channelFromIdlePool.isActive()) {
@@ -175,7 +276,7 @@ class ApnsChannelPool {
                     } else {
                         // The channel from the idle pool isn't usable; discard it and create a new one instead
                         this.discardChannel(channelFromIdlePool);
-                        this.acquireWithinEventExecutor(acquirePromise);
+                        this.acquireWithinEventExecutor(acquirePromise, channelToAvoid);
                     }
                 } else {
                     // We don't have any connections ready to go, and don't have any more capacity to create new
@@ -188,12 +289,198 @@ class ApnsChannelPool {
         }
     }
 
+    private Channel pollLeastLoadedIdleChannel(final Channel channelToAvoid) {
+        assert this.executor.inEventLoop();
+
+        Channel leastLoadedChannel = null;
+        int greatestAvailableCapacity = Integer.MIN_VALUE;
+
+        for (final Channel channel : this.idleChannels) {
+            if (channel == channelToAvoid && this.idleChannels.size() > 1) {
+                continue;
+            }
+
+            final int availableCapacity = getAvailableStreamCapacity(channel);
+
+            // Ties go to the channel that has been idle the longest
+            if (leastLoadedChannel == null || availableCapacity > greatestAvailableCapacity) {
+                leastLoadedChannel = channel;
+                greatestAvailableCapacity = availableCapacity;
+            }
+        }
+
+        if (leastLoadedChannel != null) {
+            this.idleChannels.remove(leastLoadedChannel);
+        }
+
+        return leastLoadedChannel;
+    }
+
     /**
-     * Returns a previously-acquired channel to the pool.
+     * Selects one of the given channels. If the calling thread is the event loop for any of the given (active)
+     * channels, the one of those channels with the most spare stream capacity wins. Otherwise, channels are selected
+     * using a "power of two choices" strategy: two channels are chosen at random, and the one with more spare stream
+     * capacity wins.
+     */
+    private static Channel selectChannel(final Channel[] channels) {
+        if (channels.length == 1) {
+            return channels[0];
+        }
+
+        // Callers already running on a channel's event loop can write to that channel without handing off to another
+        // thread, so prefer those channels when there are any
+        if (Thread.currentThread() instanceof FastThreadLocalThread) {
+            Channel localChannel = null;
+
+            for (final Channel channel : channels) {
+                if (channel.isActive() && channel.isRegistered() && channel.eventLoop().inEventLoop() &&
+                        (localChannel == null || getAvailableStreamCapacity(channel) > getAvailableStreamCapacity(localChannel))) {
+
+                    localChannel = channel;
+                }
+            }
+
+            if (localChannel != null) {
+                return localChannel;
+            }
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        final int firstIndex = random.nextInt(channels.length);
+        int secondIndex = random.nextInt(channels.length - 1);
+
+        if (secondIndex >= firstIndex) {
+            secondIndex += 1;
+        }
+
+        final Channel firstChannel = channels[firstIndex];
+        final Channel secondChannel = channels[secondIndex];
+
+        // Prefer active channels first; if both are (in)active, prefer the one with less work in flight
+        if (firstChannel.isActive() != secondChannel.isActive()) {
+            return firstChannel.isActive() ? firstChannel : secondChannel;
+        }
+
+        return getAvailableStreamCapacity(firstChannel) >= getAvailableStreamCapacity(secondChannel) ?
+                firstChannel : secondChannel;
+    }
+
+    /**
+     * Returns the total number of notifications this pool's active channels could have in flight at once according to
+     * the {@code SETTINGS_MAX_CONCURRENT_STREAMS} value the server reported for each connection (or a finite default
+     * for connections where the server did not specify a limit). This method may be called from any thread.
+     *
+     * @return the total number of notifications this pool's active channels could have in flight at once, or zero if
+     * the pool has no active channels
+     */
+    int getStreamCapacity() {
+        long streamCapacity = 0;
+
+        for (final Channel channel : this.allChannels) {
+            final ApnsClientHandler handler = channel.pipeline().get(ApnsClientHandler.class);
+
+            if (channel.isActive() && handler != null) {
+                streamCapacity += handler.getMaxConcurrentStreams();
+            }
+        }
+
+        return (int) Math.min(streamCapacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of additional notifications this pool's active channels could send immediately without
+     * waiting for streams to become available. Unlike {@link #getStreamCapacity()}, this accounts for notifications
+     * already in flight from any caller. This method may be called from any thread.
+     *
+     * @return the number of additional notifications this pool's active channels could send immediately, or zero if
+     * the pool has no active channels
+     */
+    int getAvailableStreamCapacity() {
+        long availableStreamCapacity = 0;
+
+        for (final Channel channel : this.allChannels) {
+            final ApnsClientHandler handler = channel.pipeline().get(ApnsClientHandler.class);
+
+            if (channel.isActive() && handler != null) {
+                // Channels with notifications waiting for streams don't take anything away from other channels
+                availableStreamCapacity += Math.max(handler.getAvailableStreamCapacity(), 0);
+            }
+        }
+
+        return (int) Math.min(availableStreamCapacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Selects one of the given channels as described in {@link #selectChannel(Channel[])}, but chooses the active
+     * channel with the most spare stream capacity other than {@code channelToAvoid} if the initial selection would
+     * have been {@code channelToAvoid}.
+     */
+    private static Channel selectChannel(final Channel[] channels, final Channel channelToAvoid) {
+        final Channel channel = selectChannel(channels);
+
+        if (channel != channelToAvoid || channels.length == 1) {
+            return channel;
+        }
+
+        Channel alternativeChannel = null;
+
+        for (final Channel candidate : channels) {
+            if (candidate != channelToAvoid && candidate.isActive() && (alternativeChannel == null ||
+                    getAvailableStreamCapacity(candidate) > getAvailableStreamCapacity(alternativeChannel))) {
+
+                alternativeChannel = candidate;
+            }
+        }
+
+        return alternativeChannel != null ? alternativeChannel : channel;
+    }
+
+    private static int getAvailableStreamCapacity(final Channel channel) {
+        final ApnsClientHandler handler = channel.pipeline().get(ApnsClientHandler.class);
+        return handler != null ? handler.getAvailableStreamCapacity() : Integer.MAX_VALUE;
+    }
+
+    private void addReadyChannel(final Channel channel) {
+        assert this.executor.inEventLoop();
+
+        final Channel[] channels = Arrays.copyOf(this.readyChannels, this.readyChannels.length + 1);
+        channels[channels.length - 1] = channel;
+
+        this.readyChannels = channels;
+    }
+
+    private void removeReadyChannel(final Channel channel) {
+        assert this.executor.inEventLoop();
+
+        final List<Channel> channels = new ArrayList<>(Arrays.asList(this.readyChannels));
+
+        if (channels.remove(channel)) {
+            this.readyChannels = channels.toArray(new Channel[0]);
+        }
+    }
+
+    private void discardInactiveReadyChannels() {
+        assert this.executor.inEventLoop();
+
+        for (final Channel channel : this.readyChannels) {
+            if (!channel.isActive() || !this.allChannels.contains(channel)) {
+                this.discardChannel(channel);
+            }
+        }
+    }
+
+    /**
+     * Returns a previously-acquired channel to the pool. If lock-free channel selection is enabled, channels are shared
+     * among callers and releasing a channel has no effect.
      *
      * @param channel the channel to return to the pool
      */
     void release(final Channel channel) {
+        if (this.lockFreeChannelSelection) {
+            return;
+        }
+
         if (this.executor.inEventLoop()) {
             this.releaseWithinEventExecutor(channel);
         } else {
@@ -222,6 +509,10 @@ class ApnsChannelPool {
         this.idleChannels.remove(channel);
         this.allChannels.remove(channel);
 
+        if (this.lockFreeChannelSelection) {
+            this.removeReadyChannel(channel);
+        }
+
         log.debug("Discarded channel {}", channel);
         this.metricsListener.handleConnectionRemoved();
 
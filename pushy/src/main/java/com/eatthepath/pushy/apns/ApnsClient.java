@@ -22,17 +22,30 @@
 
 package com.eatthepath.pushy.apns;
 
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationBatchFuture;
 import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.util.Timer;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * <p>An APNs client sends push notifications to the APNs gateway. Clients authenticate themselves to APNs servers in
@@ -45,10 +58,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  * <p>Clients are constructed using an {@link ApnsClientBuilder}. Callers may optionally specify a set of
  * {@link ApnsClientResources} when constructing a new client. If no client resources are specified,
- * clients will create and manage their own resources with a single-thread event loop group. If many clients are
- * operating in parallel, specifying a shared ser of resources serves as a mechanism to keep the total number of threads
- * in check. Callers may also want to provide a specific event loop group to take advantage of platform-specific
- * features (i.e. {@code epoll} or {@code KQueue}).</p>
+ * clients will create and manage their own resources with an event loop group sized for the client's number of
+ * concurrent connections (see {@link ApnsClientResources#forConcurrentConnections(int)}). If many clients are operating
+ * in parallel, specifying a shared ser of resources serves as a mechanism to keep the total number of threads in
+ * check. Callers may also want to provide a specific event loop group to take advantage of platform-specific features
+ * (i.e. {@code io_uring}, {@code epoll}, or {@code KQueue}).</p>
  *
  * <p>Callers must either provide an SSL context with the client's certificate or a signing key at client construction
  * time. If a signing key is provided, the client will use token authentication when sending notifications; otherwise,
@@ -78,16 +92,52 @@ public class ApnsClient {
     private final boolean shouldShutDownClientResources;
 
     private final ApnsChannelPool channelPool;
+    private final List<EventLoop> eventLoops;
+    private final InFlightNotificationLimiter inFlightNotificationLimiter;
+
+    private final RetryPolicy retryPolicy;
+    private final Timer retryTimer;
 
     private final ApnsClientMetricsListener metricsListener;
 
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
 
+    // The maximum number of notifications from a batch that will be written to a single connection before flushing
+    private static final int MAX_NOTIFICATIONS_PER_WRITE = 256;
+
+    private static final long STREAM_CAPACITY_POLL_INTERVAL_MILLIS = 10;
+
     private static final IllegalStateException CLIENT_CLOSED_EXCEPTION =
             new IllegalStateException("Client has been closed and can no longer send push notifications.");
 
     private static final Logger log = LoggerFactory.getLogger(ApnsClient.class);
 
+    /**
+     * A future for a single attempt to send a notification when retries are enabled. Attempt futures complete the
+     * caller's future when the attempt succeeds, is rejected for a non-transient reason, or is the notification's last
+     * attempt; otherwise, they schedule another attempt.
+     */
+    private static class RetryAttemptFuture<T extends ApnsPushNotification> extends PushNotificationFuture<T, PushNotificationResponse<T>> {
+
+        private final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture;
+        private final int retries;
+
+        // Shared by all attempts for the same notification so we report it as sent only once, no matter how many
+        // times we write it
+        private final AtomicBoolean sent;
+
+        // The channel to which this attempt was written, if any
+        private volatile Channel channel;
+
+        private RetryAttemptFuture(final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture, final int retries, final AtomicBoolean sent) {
+            super(responseFuture.getPushNotification());
+
+            this.responseFuture = responseFuture;
+            this.retries = retries;
+            this.sent = sent;
+        }
+    }
+
     private static class NoopApnsClientMetricsListener implements ApnsClientMetricsListener {
 
 
@@ -117,19 +167,39 @@ public class ApnsClient {
     }
 
     ApnsClient(final ApnsClientConfiguration clientConfiguration, final ApnsClientResources clientResources) {
+        this(clientConfiguration, clientResources, null, null);
+    }
+
+    /**
+     * Constructs a new client that, if {@code eventLoop} is not {@code null}, manages its connection pool on the given
+     * event loop and registers all of its connections with that event loop. The given event loop must belong to the
+     * given client resources. If {@code sharedAuthenticationTokenProvider} is not {@code null}, the client will use
+     * that provider instead of creating its own, and will not close the provider when the client is closed.
+     */
+    ApnsClient(final ApnsClientConfiguration clientConfiguration,
+               final ApnsClientResources clientResources,
+               final EventLoop eventLoop,
+               final AuthenticationTokenProvider sharedAuthenticationTokenProvider) {
 
         if (clientResources != null) {
             this.clientResources = clientResources;
             this.shouldShutDownClientResources = false;
         } else {
-            this.clientResources = new ApnsClientResources(new NioEventLoopGroup(1));
+            this.clientResources = ApnsClientResources.forConcurrentConnections(clientConfiguration.getConcurrentConnections());
             this.shouldShutDownClientResources = true;
         }
 
+        this.retryPolicy = clientConfiguration.getRetryPolicy().orElse(null);
+        this.retryTimer = this.retryPolicy != null ? this.clientResources.getRetryTimer() : null;
+
         this.metricsListener = clientConfiguration.getMetricsListener()
                 .orElseGet(NoopApnsClientMetricsListener::new);
 
-        final ApnsChannelFactory channelFactory = new ApnsChannelFactory(clientConfiguration, this.clientResources);
+        final ApnsChannelFactory channelFactory = new ApnsChannelFactory(clientConfiguration, this.clientResources,
+                eventLoop != null ? eventLoop : this.clientResources.getEventLoopGroup(),
+                sharedAuthenticationTokenProvider);
+
+        this.eventLoops = channelFactory.getEventLoops();
 
         final ApnsChannelPoolMetricsListener channelPoolMetricsListener = new ApnsChannelPoolMetricsListener() {
 
@@ -149,10 +219,15 @@ public class ApnsClient {
             }
         };
 
+        this.inFlightNotificationLimiter = clientConfiguration.getMaxInFlightNotifications() > 0 ?
+                new InFlightNotificationLimiter(clientConfiguration.getMaxInFlightNotifications(),
+                        clientConfiguration.getInFlightLimitPolicy()) : null;
+
         this.channelPool = new ApnsChannelPool(channelFactory,
             clientConfiguration.getConcurrentConnections(),
-            this.clientResources.getEventLoopGroup().next(),
-            channelPoolMetricsListener);
+            eventLoop != null ? eventLoop : this.clientResources.getEventLoopGroup().next(),
+            channelPoolMetricsListener,
+            clientConfiguration.isLockFreeChannelSelectionEnabled());
     }
 
     /**
@@ -168,6 +243,10 @@ public class ApnsClient {
      * non-permanent, and callers should attempt to re-send the notification when the underlying problem has been
      * resolved.</p>
      *
+     * <p>If the client was built with an in-flight notification limit and already has its maximum number of
+     * notifications in flight, this method will fail the returned future, defer the notification, or block until the
+     * notification can be sent according to the client's {@link InFlightLimitPolicy}.</p>
+     *
      * @param notification the notification to send to the APNs gateway
      *
      * @param <T> the type of notification to be sent
@@ -181,39 +260,328 @@ public class ApnsClient {
         final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture =
                 new PushNotificationFuture<>(notification);
 
+        if (!this.isClosed.get()) {
+            this.addMetricsListener(responseFuture, System.nanoTime());
+
+            final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures =
+                    Collections.singletonList(responseFuture);
+
+            if (this.inFlightNotificationLimiter == null ||
+                    this.inFlightNotificationLimiter.acquire(responseFuture, () -> this.writeNotifications(responseFutures))) {
+
+                this.writeNotifications(responseFutures);
+            }
+        } else {
+            responseFuture.completeExceptionally(CLIENT_CLOSED_EXCEPTION);
+        }
+
+        return responseFuture;
+    }
+
+    /**
+     * <p>Sends a group of push notifications to the APNs gateway. Sending notifications in a batch is functionally
+     * equivalent to sending each notification individually via {@link #sendNotification(ApnsPushNotification)}, but
+     * is considerably more efficient for large numbers of notifications because the client acquires a connection once
+     * for each chunk of notifications (rather than once for every notification) and writes each chunk to the
+     * connection with a single flush.</p>
+     *
+     * <p>This method returns a batch future that completes when every notification in the batch has been accepted,
+     * rejected, or has failed to send. The batch future itself never completes exceptionally; callers should inspect
+     * the individual futures returned by {@link PushNotificationBatchFuture#getPushNotificationFutures()} to determine
+     * the outcome for each notification. The same rules regarding permanent rejections and non-permanent sending
+     * failures described in {@link #sendNotification(ApnsPushNotification)} apply to each individual future, as does
+     * the client's {@link InFlightLimitPolicy} (if any).</p>
+     *
+     * @param notifications the notifications to send to the APNs gateway
+     *
+     * @param <T> the type of notifications to be sent
+     *
+     * @return a batch future that will complete when all notifications have been either accepted or rejected by the
+     * APNs gateway or have failed to send
+     *
+     * @since 0.16
+     */
+    public <T extends ApnsPushNotification> PushNotificationBatchFuture<T, PushNotificationResponse<T>> sendNotifications(final Collection<T> notifications) {
+        final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures =
+                new ArrayList<>(notifications.size());
+
+        for (final T notification : notifications) {
+            responseFutures.add(new PushNotificationFuture<>(notification));
+        }
+
         if (!this.isClosed.get()) {
             final long start = System.nanoTime();
 
-            this.channelPool.acquire().addListener((GenericFutureListener<Future<Channel>>) acquireFuture -> {
-                if (acquireFuture.isSuccess()) {
-                    final Channel channel = acquireFuture.getNow();
+            for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                this.addMetricsListener(responseFuture, start);
+            }
 
-                    channel.writeAndFlush(responseFuture).addListener((GenericFutureListener<ChannelFuture>) future -> {
-                        if (future.isSuccess()) {
-                            ApnsClient.this.metricsListener.handleNotificationSent(notification.getTopic());
-                        }
-                    });
+            List<PushNotificationFuture<T, PushNotificationResponse<T>>> chunk = new ArrayList<>();
 
-                    ApnsClient.this.channelPool.release(channel);
-                } else {
-                    responseFuture.completeExceptionally(acquireFuture.cause());
+            for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                if (this.inFlightNotificationLimiter != null && !this.inFlightNotificationLimiter.tryAcquire(responseFuture)) {
+                    // Write everything we've already admitted before we (potentially) wait for in-flight notifications
+                    // to resolve; otherwise, we could wind up waiting for permits held by notifications we haven't sent
+                    if (!chunk.isEmpty()) {
+                        this.writeNotifications(chunk);
+                        chunk = new ArrayList<>();
+                    }
+
+                    final List<PushNotificationFuture<T, PushNotificationResponse<T>>> deferredResponseFutures =
+                            Collections.singletonList(responseFuture);
+
+                    if (!this.inFlightNotificationLimiter.acquire(responseFuture,
+                            () -> this.writeNotifications(deferredResponseFutures))) {
+                        continue;
+                    }
                 }
-            });
+
+                chunk.add(responseFuture);
+
+                if (chunk.size() == MAX_NOTIFICATIONS_PER_WRITE) {
+                    this.writeNotifications(chunk);
+                    chunk = new ArrayList<>();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                this.writeNotifications(chunk);
+            }
+        } else {
+            for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                responseFuture.completeExceptionally(CLIENT_CLOSED_EXCEPTION);
+            }
+        }
+
+        return new PushNotificationBatchFuture<>(responseFutures);
+    }
+
+    /**
+     * <p>Sends every notification produced by the given iterator to the APNs gateway, pulling notifications from the
+     * iterator only as quickly as the client's connections can accept them. This method is intended for feeding a
+     * client from an unbounded (or very large) source of notifications, like a message queue consumer, without
+     * accumulating an unbounded number of pending futures.</p>
+     *
+     * <p>The client pulls a notification from the iterator only when its open connections have a free HTTP/2 stream
+     * (accounting for notifications sent by any caller, not just this one) and the number of notifications sent by
+     * this call and not yet resolved is less than the total number of concurrent streams the APNs server allows across
+     * all of the client's open connections (as reported by the server's {@code SETTINGS_MAX_CONCURRENT_STREAMS} for
+     * each connection). Connections for which the server has not specified a limit are assumed to allow 100 concurrent
+     * streams. Until the client has opened a connection, only one notification at a time will be in flight. The
+     * iterator is only ever called from the calling thread, and may block while waiting for new notifications.</p>
+     *
+     * <p>The given response handler is called with each notification's future once that future has completed; please
+     * see {@link #sendNotification(ApnsPushNotification)} for a discussion of the possible outcomes. Response handlers
+     * may be called from any thread (generally an I/O thread), and should not block. This method returns once the
+     * iterator has been exhausted and the response handler has been called for every notification sent.</p>
+     *
+     * @param notifications an iterator that produces the notifications to send to the APNs gateway
+     * @param responseHandler a handler to be called with each notification's future once it has completed
+     *
+     * @param <T> the type of notifications to be sent
+     *
+     * @return the number of notifications sent
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting for stream capacity; in this
+     * case, notifications already pulled from the iterator may still be sent, and the response handler will still be
+     * called for each of them
+     *
+     * @since 0.16
+     */
+    public <T extends ApnsPushNotification> long sendNotifications(final Iterator<T> notifications, final Consumer<PushNotificationFuture<T, PushNotificationResponse<T>>> responseHandler) throws InterruptedException {
+        final Lock lock = new ReentrantLock();
+        final Condition notificationResolved = lock.newCondition();
+
+        final AtomicInteger pendingNotifications = new AtomicInteger(0);
+        long sentNotifications = 0;
+
+        while (notifications.hasNext()) {
+            lock.lock();
+
+            try {
+                // Streams may also be freed by notifications sent by other callers, and we won't hear about those, so
+                // we need to check back periodically even if none of our own notifications resolve
+                while (!this.hasStreamCapacity(pendingNotifications.get())) {
+                    notificationResolved.await(STREAM_CAPACITY_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                pendingNotifications.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+
+            final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture =
+                    this.sendNotification(notifications.next());
+
+            sentNotifications += 1;
 
             responseFuture.whenComplete((response, cause) -> {
-                final long end = System.nanoTime();
+                try {
+                    responseHandler.accept(responseFuture);
+                } finally {
+                    lock.lock();
+
+                    try {
+                        pendingNotifications.decrementAndGet();
+                        notificationResolved.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        }
+
+        lock.lock();
+
+        try {
+            while (pendingNotifications.get() > 0) {
+                notificationResolved.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return sentNotifications;
+    }
 
-                if (response != null) {
-                    ApnsClient.this.metricsListener.handleNotificationAcknowledged(response, end - start);
+    private boolean hasStreamCapacity(final int pendingNotifications) {
+        final int streamCapacity = this.channelPool.getStreamCapacity();
+
+        if (streamCapacity == 0) {
+            // We don't have any open connections (yet), and so can't tell how much capacity we'll have; send one
+            // notification at a time until we know more
+            return pendingNotifications == 0;
+        }
+
+        // Our own notifications may not have reached a connection yet, and so may not be reflected in the available
+        // capacity; the overall stream capacity limits how far ahead of the connections we can get
+        return pendingNotifications < streamCapacity && this.channelPool.getAvailableStreamCapacity() > 0;
+    }
+
+    private <T extends ApnsPushNotification> void writeNotifications(final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures) {
+        if (this.retryPolicy != null) {
+            final List<PushNotificationFuture<T, PushNotificationResponse<T>>> attemptFutures =
+                    new ArrayList<>(responseFutures.size());
+
+            for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                attemptFutures.add(this.newRetryAttemptFuture(responseFuture, 0, new AtomicBoolean(false)));
+            }
+
+            this.writeNotifications(attemptFutures, null);
+        } else {
+            this.writeNotifications(responseFutures, null);
+        }
+    }
+
+    private <T extends ApnsPushNotification> RetryAttemptFuture<T> newRetryAttemptFuture(final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture, final int retries, final AtomicBoolean sent) {
+        final RetryAttemptFuture<T> attemptFuture = new RetryAttemptFuture<>(responseFuture, retries, sent);
+
+        attemptFuture.whenComplete((response, cause) -> {
+            final boolean shouldRetry = retries < this.retryPolicy.getMaxRetries() &&
+                    !responseFuture.isDone() &&
+                    !this.isClosed.get() &&
+                    (response != null ? RetryPolicy.isRetryable(response) : RetryPolicy.isRetryable(cause));
+
+            if (shouldRetry) {
+                final long delayNanos = this.retryPolicy.getRetryDelayNanos(retries + 1);
+
+                log.debug("Retrying notification (retry {}) in {} ns", retries + 1, delayNanos);
+
+                this.retryTimer.newTimeout(timeout -> this.retryNotification(attemptFuture), delayNanos, TimeUnit.NANOSECONDS);
+            } else if (response != null) {
+                responseFuture.complete(response);
+            } else {
+                responseFuture.completeExceptionally(cause);
+            }
+        });
+
+        return attemptFuture;
+    }
+
+    private <T extends ApnsPushNotification> void retryNotification(final RetryAttemptFuture<T> previousAttemptFuture) {
+        if (this.isClosed.get()) {
+            previousAttemptFuture.responseFuture.completeExceptionally(CLIENT_CLOSED_EXCEPTION);
+        } else if (!previousAttemptFuture.responseFuture.isDone()) {
+            this.writeNotifications(Collections.singletonList(
+                    this.newRetryAttemptFuture(previousAttemptFuture.responseFuture, previousAttemptFuture.retries + 1, previousAttemptFuture.sent)),
+                    previousAttemptFuture.channel);
+        }
+    }
+
+    private <T extends ApnsPushNotification> void writeNotifications(final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures, final Channel channelToAvoid) {
+        this.channelPool.acquire(channelToAvoid).addListener((GenericFutureListener<Future<Channel>>) acquireFuture -> {
+            if (acquireFuture.isSuccess()) {
+                final Channel channel = acquireFuture.getNow();
+
+                if (this.retryPolicy != null) {
+                    for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                        ((RetryAttemptFuture<T>) responseFuture).channel = channel;
+                    }
+                }
+
+                if (channel.eventLoop().inEventLoop()) {
+                    this.writeNotificationsWithinEventLoop(channel, responseFutures);
                 } else {
-                    ApnsClient.this.metricsListener.handleWriteFailure(notification.getTopic());
+                    channel.eventLoop().execute(() -> this.writeNotificationsWithinEventLoop(channel, responseFutures));
+                }
+
+                ApnsClient.this.channelPool.release(channel);
+            } else {
+                for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+                    responseFuture.completeExceptionally(acquireFuture.cause());
+                }
+            }
+        });
+    }
+
+    private <T extends ApnsPushNotification> void writeNotificationsWithinEventLoop(final Channel channel, final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures) {
+        assert channel.eventLoop().inEventLoop();
+
+        for (final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture : responseFutures) {
+            channel.write(responseFuture).addListener((GenericFutureListener<ChannelFuture>) future -> {
+                // Acknowledgements and failures are reported once per notification, not once per attempt, and so
+                // "sent" events should be, too
+                if (future.isSuccess() && (!(responseFuture instanceof RetryAttemptFuture) ||
+                        ((RetryAttemptFuture<T>) responseFuture).sent.compareAndSet(false, true))) {
+                    ApnsClient.this.metricsListener.handleNotificationSent(responseFuture.getPushNotification().getTopic());
                 }
             });
-        } else {
-            responseFuture.completeExceptionally(CLIENT_CLOSED_EXCEPTION);
         }
 
-        return responseFuture;
+        channel.flush();
+    }
+
+    private <T extends ApnsPushNotification> void addMetricsListener(final PushNotificationFuture<T, PushNotificationResponse<T>> responseFuture, final long start) {
+        responseFuture.whenComplete((response, cause) -> {
+            final long end = System.nanoTime();
+
+            if (response != null) {
+                ApnsClient.this.metricsListener.handleNotificationAcknowledged(response, end - start);
+            } else {
+                ApnsClient.this.metricsListener.handleWriteFailure(responseFuture.getPushNotification().getTopic());
+            }
+        });
+    }
+
+    /**
+     * <p>Returns the event loops to which this client assigns its connections. Each connection is pinned to (and
+     * performs all of its IO on) one of these event loops, and new connections are assigned to whichever of these event
+     * loops has the fewest connections. Once the client has opened all of its connections, each of these event loops
+     * will host at least one connection.</p>
+     *
+     * <p>Writing a notification to a connection always happens on that connection's event loop. If lock-free channel
+     * selection is enabled, notifications sent from one of these event loops will be written to a connection on the
+     * same event loop (if one is available), avoiding a hand-off between threads. Producers may take advantage of this
+     * by submitting work that sends notifications directly to these event loops.</p>
+     *
+     * @return an unmodifiable list of the event loops to which this client assigns its connections
+     *
+     * @see ApnsClientBuilder#setLockFreeChannelSelectionEnabled(boolean)
+     *
+     * @since 0.16
+     */
+    public List<EventLoop> getEventLoops() {
+        return this.eventLoops;
     }
 
     /**
@@ -221,7 +589,8 @@ public class ApnsClient {
      * disconnection process will wait until notifications that have been sent to the APNs server have been either
      * accepted or rejected. Note that some notifications passed to
      * {@link ApnsClient#sendNotification(ApnsPushNotification)} may still be enqueued and not yet sent by the time the
-     * shutdown process begins; the {@code Futures} associated with those notifications will fail.</p>
+     * shutdown process begins; the {@code Futures} associated with those notifications (including any notifications
+     * deferred because of an in-flight notification limit) will fail.</p>
      *
      * <p>The returned {@code Future} will be marked as complete when all connections in this client's pool have closed
      * completely and (if no {@code ApnsClientResources} were provided at construction time) the client's resources have
@@ -242,6 +611,10 @@ public class ApnsClient {
         if (this.isClosed.compareAndSet(false, true)) {
             closeFuture = new CompletableFuture<>();
 
+            if (this.inFlightNotificationLimiter != null) {
+                this.inFlightNotificationLimiter.failDeferredNotifications(CLIENT_CLOSED_EXCEPTION);
+            }
+
             this.channelPool.close().addListener((GenericFutureListener<Future<Void>>) closePoolFuture -> {
                 if (ApnsClient.this.shouldShutDownClientResources) {
                     ApnsClient.this.clientResources.shutdownGracefully().addListener(future -> closeFuture.complete(null));
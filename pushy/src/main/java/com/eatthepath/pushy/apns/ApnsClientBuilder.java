@@ -43,6 +43,7 @@ import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
+import java.util.Objects;
 
 /**
  * An {@code ApnsClientBuilder} constructs new {@link ApnsClient} instances. Callers must specify the APNs server to
@@ -72,6 +73,14 @@ public class ApnsClientBuilder {
     private ApnsClientResources apnsClientResources;
 
     private int concurrentConnections = 1;
+    private boolean enableLockFreeChannelSelection = false;
+
+    private int maxInFlightNotifications = 0;
+    private InFlightLimitPolicy inFlightLimitPolicy = InFlightLimitPolicy.FAIL;
+
+    private RetryPolicy retryPolicy;
+
+    private boolean usePooledDirectPayloadBuffers = false;
 
     private ApnsClientMetricsListener metricsListener;
 
@@ -310,6 +319,9 @@ public class ApnsClientBuilder {
      * expiration duration for clients using token-based authentication is 50 minutes. Callers <em>should not</em> set a
      * non-default value unless the upstream behavior changes.</p>
      *
+     * <p>Clients replace their tokens in the background up to 10% ahead of the given expiration duration (at a random
+     * point in that window), and connections pick up replacement tokens without reconnecting.</p>
+     *
      * @param tokenExpiration the duration after which authentication tokens should expire
      *
      * @return a reference to this builder
@@ -450,6 +462,124 @@ public class ApnsClientBuilder {
         return this;
     }
 
+    /**
+     * <p>Enables or disables lock-free channel selection for the client under construction. Lock-free channel selection
+     * is disabled by default.</p>
+     *
+     * <p>By default, clients acquire a connection from their internal pool for each notification they send, and all
+     * acquisitions are coordinated by a single thread. When lock-free channel selection is enabled and the client has
+     * opened all of its connections, connections are shared among all callers, and the client picks a connection for
+     * each notification directly from the calling thread (preferring connections with fewer notifications in flight)
+     * without coordinating with other callers. This may significantly increase throughput for clients with many
+     * concurrent connections that send notifications from many threads. Opening and closing connections is still
+     * coordinated by a single thread.</p>
+     *
+     * @param lockFreeChannelSelectionEnabled {@code true} to enable lock-free channel selection or {@code false}
+     * otherwise
+     *
+     * @return a reference to this builder
+     *
+     * @see #setConcurrentConnections(int)
+     *
+     * @since 0.16
+     */
+    public ApnsClientBuilder setLockFreeChannelSelectionEnabled(final boolean lockFreeChannelSelectionEnabled) {
+        this.enableLockFreeChannelSelection = lockFreeChannelSelectionEnabled;
+        return this;
+    }
+
+    /**
+     * <p>Sets the maximum number of notifications the client under construction may have in flight at any given time
+     * and the policy to apply when callers try to send a notification while the client is already at that limit. A
+     * notification is "in flight" from the time it is admitted for sending until the time the future returned for that
+     * notification completes. By default, clients do not limit the number of notifications in flight.</p>
+     *
+     * <p>Callers that may send notifications faster than the APNs server can accept them should generally set a limit;
+     * otherwise, notifications waiting for a connection or for an available HTTP/2 stream will accumulate in memory
+     * without bound. Clients that defer notifications hold at most {@code maxInFlightNotifications} deferred
+     * notifications in addition to those in flight.</p>
+     *
+     * @param maxInFlightNotifications the maximum number of notifications the client under construction may have in
+     * flight at any given time, or zero if the number of notifications in flight should not be limited
+     * @param policy the policy to apply to notifications sent while the client is at its limit
+     *
+     * @return a reference to this builder
+     *
+     * @since 0.16
+     */
+    public ApnsClientBuilder setInFlightNotificationLimit(final int maxInFlightNotifications, final InFlightLimitPolicy policy) {
+        if (maxInFlightNotifications < 0) {
+            throw new IllegalArgumentException("Maximum number of in-flight notifications must not be negative.");
+        }
+
+        this.maxInFlightNotifications = maxInFlightNotifications;
+        this.inFlightLimitPolicy = Objects.requireNonNull(policy, "In-flight limit policy must not be null.");
+
+        return this;
+    }
+
+    /**
+     * <p>Sets the policy the client under construction should use to automatically retry notifications after transient
+     * failures. By default, clients do not retry notifications, and all failures are reported to callers via the
+     * futures returned when sending notifications.</p>
+     *
+     * <p>If a retry policy is set, the client will retry notifications that could not be written to a connection or
+     * that were lost when a connection closed before the server replied, as well as notifications the server rejected
+     * because it was overloaded or temporarily unavailable (i.e. with a {@code TooManyRequests},
+     * {@code InternalServerError}, {@code ServiceUnavailable}, or {@code Shutdown} rejection reason). Retries are
+     * delayed by an exponentially-increasing (and randomly jittered) interval, and the client will try to send each
+     * retry via a different connection than the previous attempt if it has more than one connection available. The
+     * future for a notification completes only once the notification has been accepted, rejected for a non-transient
+     * reason, or has failed after exhausting its retries.</p>
+     *
+     * <p>Notifications waiting to be retried count against the client's in-flight notification limit (if any).</p>
+     *
+     * @param maxRetries the maximum number of times to retry any single notification, or zero to disable retries
+     * @param initialRetryDelay the nominal delay before the first retry of any notification
+     * @param maxRetryDelay the maximum nominal delay before any retry; must not be less than the initial delay
+     *
+     * @return a reference to this builder
+     *
+     * @see #setInFlightNotificationLimit(int, InFlightLimitPolicy)
+     *
+     * @since 0.16
+     */
+    public ApnsClientBuilder setRetryPolicy(final int maxRetries, final Duration initialRetryDelay, final Duration maxRetryDelay) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Maximum number of retries must not be negative.");
+        }
+
+        this.retryPolicy = maxRetries > 0 ? new RetryPolicy(maxRetries, initialRetryDelay, maxRetryDelay) : null;
+
+        return this;
+    }
+
+    /**
+     * <p>Sets whether the client under construction should encode notification payloads directly into pooled, direct
+     * buffers obtained from each connection's allocator. By default, clients encode each payload into a new byte array
+     * on the heap.</p>
+     *
+     * <p>Encoding payloads into pooled, direct buffers avoids allocating a short-lived byte array for every
+     * notification and spares the TLS layer from copying each payload from the heap into a direct buffer before
+     * encrypting it, which may reduce garbage collection pressure for clients that send notifications at very high
+     * rates. Writing into direct memory is slower than writing into a heap array, though, especially for ASCII-only
+     * payloads, so this setting trades some encoding throughput for a lower allocation rate. This setting has no effect
+     * on notifications with pre-encoded payloads.</p>
+     *
+     * @param usePooledDirectPayloadBuffers {@code true} if the client under construction should encode payloads into
+     * pooled, direct buffers or {@code false} if it should encode payloads into new heap buffers
+     *
+     * @return a reference to this builder
+     *
+     * @see com.eatthepath.pushy.apns.PreEncodedApnsPushNotification
+     *
+     * @since 0.16
+     */
+    public ApnsClientBuilder setUsePooledDirectPayloadBuffers(final boolean usePooledDirectPayloadBuffers) {
+        this.usePooledDirectPayloadBuffers = usePooledDirectPayloadBuffers;
+        return this;
+    }
+
     /**
      * Sets the metrics listener for the client under construction. Metrics listeners gather information that describes
      * the performance and behavior of a client, and are completely optional.
@@ -589,6 +719,55 @@ public class ApnsClientBuilder {
      * @since 0.8
      */
     public ApnsClient build() throws SSLException {
+        final SslContext sslContext = this.buildSslContext();
+
+        try {
+            return new ApnsClient(this.buildClientConfiguration(sslContext), this.apnsClientResources);
+        } finally {
+            if (sslContext instanceof ReferenceCounted) {
+                ((ReferenceCounted) sslContext).release();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new {@link ApnsClientGroup} with the given number of shards, each of which is a client with the
+     * previously-set configuration. Client groups spread notifications across their shards according to the given
+     * sharding strategy, and pin each shard to a different event loop in the group's client resources.
+     *
+     * @param shardCount the number of shards (clients) in the group; must be positive
+     * @param shardingStrategy the strategy the group will use to assign notifications to shards
+     *
+     * @return a new ApnsClientGroup instance with the given number of shards and the previously-set configuration
+     *
+     * @throws SSLException if an SSL context could not be created for the new client group for any reason
+     * @throws IllegalStateException if this method is called without specifying an APNs server address, if this method
+     * is called without providing TLS credentials or a signing key, or if this method is called with both TLS
+     * credentials and a signing key
+     * @throws IllegalArgumentException if the given shard count is not positive
+     *
+     * @see ApnsClientGroup
+     *
+     * @since 0.16
+     */
+    public ApnsClientGroup buildClientGroup(final int shardCount, final ShardingStrategy shardingStrategy) throws SSLException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Client groups must have at least one shard.");
+        }
+
+        final SslContext sslContext = this.buildSslContext();
+
+        try {
+            return new ApnsClientGroup(this.buildClientConfiguration(sslContext), this.apnsClientResources, shardCount,
+                    shardingStrategy);
+        } finally {
+            if (sslContext instanceof ReferenceCounted) {
+                ((ReferenceCounted) sslContext).release();
+            }
+        }
+    }
+
+    private SslContext buildSslContext() throws SSLException {
         if (this.apnsServerAddress == null) {
             throw new IllegalStateException("No APNs server address specified.");
         }
@@ -642,26 +821,26 @@ public class ApnsClientBuilder {
             sslContext = sslContextBuilder.build();
         }
 
-        try {
-            final ApnsClientConfiguration clientConfiguration =
-                    new ApnsClientConfiguration(this.apnsServerAddress,
-                            sslContext,
-                            this.enableHostnameVerification,
-                            this.signingKey,
-                            this.tokenExpiration,
-                            this.proxyHandlerFactory,
-                            this.connectionTimeout,
-                            this.closeAfterIdleDuration,
-                            this.gracefulShutdownTimeout,
-                            this.concurrentConnections,
-                            this.metricsListener,
-                            this.frameLogger);
-
-            return new ApnsClient(clientConfiguration, this.apnsClientResources);
-        } finally {
-            if (sslContext instanceof ReferenceCounted) {
-                ((ReferenceCounted) sslContext).release();
-            }
-        }
+        return sslContext;
+    }
+
+    private ApnsClientConfiguration buildClientConfiguration(final SslContext sslContext) {
+        return new ApnsClientConfiguration(this.apnsServerAddress,
+                sslContext,
+                this.enableHostnameVerification,
+                this.signingKey,
+                this.tokenExpiration,
+                this.proxyHandlerFactory,
+                this.connectionTimeout,
+                this.closeAfterIdleDuration,
+                this.gracefulShutdownTimeout,
+                this.concurrentConnections,
+                this.enableLockFreeChannelSelection,
+                this.maxInFlightNotifications,
+                this.inFlightLimitPolicy,
+                this.retryPolicy,
+                this.usePooledDirectPayloadBuffers,
+                this.metricsListener,
+                this.frameLogger);
     }
 }
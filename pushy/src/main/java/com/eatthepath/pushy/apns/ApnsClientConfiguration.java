@@ -49,6 +49,11 @@ class ApnsClientConfiguration {
     private final Duration closeAfterIdleDuration;
     private final Duration gracefulShutdownTimeout;
     private final int concurrentConnections;
+    private final boolean lockFreeChannelSelectionEnabled;
+    private final int maxInFlightNotifications;
+    private final InFlightLimitPolicy inFlightLimitPolicy;
+    private final RetryPolicy retryPolicy;
+    private final boolean usePooledDirectPayloadBuffers;
     private final ApnsClientMetricsListener metricsListener;
     private final Http2FrameLogger frameLogger;
 
@@ -62,6 +67,11 @@ class ApnsClientConfiguration {
                                    final Duration closeAfterIdleDuration,
                                    final Duration gracefulShutdownTimeout,
                                    final int concurrentConnections,
+                                   final boolean lockFreeChannelSelectionEnabled,
+                                   final int maxInFlightNotifications,
+                                   final InFlightLimitPolicy inFlightLimitPolicy,
+                                   final RetryPolicy retryPolicy,
+                                   final boolean usePooledDirectPayloadBuffers,
                                    final ApnsClientMetricsListener metricsListener,
                                    final Http2FrameLogger frameLogger) {
 
@@ -75,6 +85,11 @@ class ApnsClientConfiguration {
         this.closeAfterIdleDuration = closeAfterIdleDuration;
         this.gracefulShutdownTimeout = gracefulShutdownTimeout;
         this.concurrentConnections = concurrentConnections;
+        this.lockFreeChannelSelectionEnabled = lockFreeChannelSelectionEnabled;
+        this.maxInFlightNotifications = maxInFlightNotifications;
+        this.inFlightLimitPolicy = inFlightLimitPolicy;
+        this.retryPolicy = retryPolicy;
+        this.usePooledDirectPayloadBuffers = usePooledDirectPayloadBuffers;
         this.metricsListener = metricsListener;
         this.frameLogger = frameLogger;
     }
@@ -119,6 +134,26 @@ class ApnsClientConfiguration {
         return concurrentConnections;
     }
 
+    public boolean isLockFreeChannelSelectionEnabled() {
+        return lockFreeChannelSelectionEnabled;
+    }
+
+    public int getMaxInFlightNotifications() {
+        return maxInFlightNotifications;
+    }
+
+    public InFlightLimitPolicy getInFlightLimitPolicy() {
+        return inFlightLimitPolicy;
+    }
+
+    public Optional<RetryPolicy> getRetryPolicy() {
+        return Optional.ofNullable(retryPolicy);
+    }
+
+    public boolean isUsePooledDirectPayloadBuffers() {
+        return usePooledDirectPayloadBuffers;
+    }
+
     public Optional<ApnsClientMetricsListener> getMetricsListener() {
         return Optional.ofNullable(metricsListener);
     }
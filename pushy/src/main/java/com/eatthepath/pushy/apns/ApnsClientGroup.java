@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.EventLoopGroupUtil;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationBatchFuture;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>An APNs client group is a single logical client that spreads notifications across several independent
+ * {@link ApnsClient} "shards." Each shard has its own connection pool, and each shard's pool and connections are
+ * pinned to a different event loop in the group's {@link ApnsClientResources} (as long as there are at least as many
+ * event loops as shards). Where a single client manages its connection pool on a single thread, a client group can
+ * spread connection management and I/O for a single logical client across many threads.</p>
+ *
+ * <p>Client groups are constructed with {@link ApnsClientBuilder#buildClientGroup(int, ShardingStrategy)}, and every
+ * shard is configured with the builder's settings. Note that per-client settings like the number of concurrent
+ * connections and in-flight notification limits apply to each shard individually, and metrics listeners will receive
+ * events from all shards. Shards that use token-based authentication share a single authentication token.</p>
+ *
+ * <p>If no client resources were provided at construction time, the client group will create its own resources with
+ * one event loop per shard, and will shut them down when the group is closed.</p>
+ *
+ * <p>Like clients, client groups are thread-safe, and must be shut down via {@link #close()} when they are no longer
+ * needed.</p>
+ *
+ * @see ApnsClientBuilder#buildClientGroup(int, ShardingStrategy)
+ *
+ * @since 0.16
+ */
+public class ApnsClientGroup {
+
+    private final ApnsClient[] clients;
+    private final ShardingStrategy shardingStrategy;
+    private final AtomicInteger nextRoundRobinShard = new AtomicInteger(0);
+
+    private final ApnsClientResources clientResources;
+    private final boolean shouldShutDownClientResources;
+
+    private final AuthenticationTokenProvider authenticationTokenProvider;
+
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+    ApnsClientGroup(final ApnsClientConfiguration clientConfiguration,
+                    final ApnsClientResources clientResources,
+                    final int shardCount,
+                    final ShardingStrategy shardingStrategy) {
+
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Client groups must have at least one shard.");
+        }
+
+        this.shardingStrategy = Objects.requireNonNull(shardingStrategy, "Sharding strategy must not be null.");
+
+        if (clientResources != null) {
+            this.clientResources = clientResources;
+            this.shouldShutDownClientResources = false;
+        } else {
+            this.clientResources = new ApnsClientResources(EventLoopGroupUtil.newEventLoopGroup(shardCount));
+            this.shouldShutDownClientResources = true;
+        }
+
+        this.authenticationTokenProvider = clientConfiguration.getSigningKey()
+                .map(signingKey -> new AuthenticationTokenProvider(signingKey, clientConfiguration.getTokenExpiration(),
+                        this.clientResources.getEventLoopGroup().next()))
+                .orElse(null);
+
+        final List<EventLoop> eventLoops = new ArrayList<>();
+
+        for (final EventExecutor executor : this.clientResources.getEventLoopGroup()) {
+            if (executor instanceof EventLoop) {
+                eventLoops.add((EventLoop) executor);
+            }
+        }
+
+        this.clients = new ApnsClient[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            final EventLoop eventLoop = eventLoops.isEmpty() ? null : eventLoops.get(i % eventLoops.size());
+
+            this.clients[i] = new ApnsClient(clientConfiguration, this.clientResources, eventLoop,
+                    this.authenticationTokenProvider);
+        }
+    }
+
+    /**
+     * Returns the number of shards (clients) in this group.
+     *
+     * @return the number of shards in this group
+     */
+    public int getShardCount() {
+        return this.clients.length;
+    }
+
+    /**
+     * Sends a push notification to the APNs gateway via one of this group's shards. Please see
+     * {@link ApnsClient#sendNotification(ApnsPushNotification)} for a detailed discussion of the returned future.
+     *
+     * @param notification the notification to send to the APNs gateway
+     *
+     * @param <T> the type of notification to be sent
+     *
+     * @return a {@code Future} that will complete when the notification has been either accepted or rejected by the
+     * APNs gateway
+     */
+    public <T extends ApnsPushNotification> PushNotificationFuture<T, PushNotificationResponse<T>> sendNotification(final T notification) {
+        return this.clients[this.getShardIndex(notification)].sendNotification(notification);
+    }
+
+    /**
+     * Sends a group of push notifications to the APNs gateway. Notifications are divided among this group's shards,
+     * and each shard sends its share of the notifications as a batch. Please see
+     * {@link ApnsClient#sendNotifications(Collection)} for a detailed discussion of the returned batch future.
+     *
+     * @param notifications the notifications to send to the APNs gateway
+     *
+     * @param <T> the type of notifications to be sent
+     *
+     * @return a batch future that will complete when all notifications have been either accepted or rejected by the
+     * APNs gateway or have failed to send; individual futures within the batch are in the same order as the given
+     * notifications
+     */
+    public <T extends ApnsPushNotification> PushNotificationBatchFuture<T, PushNotificationResponse<T>> sendNotifications(final Collection<T> notifications) {
+        final int[] shardIndices = new int[notifications.size()];
+
+        final List<List<T>> notificationsByShard = new ArrayList<>(this.clients.length);
+
+        for (int i = 0; i < this.clients.length; i++) {
+            notificationsByShard.add(new ArrayList<>());
+        }
+
+        {
+            int i = 0;
+
+            for (final T notification : notifications) {
+                shardIndices[i] = this.getShardIndex(notification);
+                notificationsByShard.get(shardIndices[i]).add(notification);
+
+                i++;
+            }
+        }
+
+        final List<Iterator<PushNotificationFuture<T, PushNotificationResponse<T>>>> futuresByShard =
+                new ArrayList<>(this.clients.length);
+
+        for (int i = 0; i < this.clients.length; i++) {
+            futuresByShard.add(notificationsByShard.get(i).isEmpty() ? null :
+                    this.clients[i].sendNotifications(notificationsByShard.get(i)).getPushNotificationFutures().iterator());
+        }
+
+        // Reassemble futures in the order in which the notifications were provided
+        final List<PushNotificationFuture<T, PushNotificationResponse<T>>> responseFutures =
+                new ArrayList<>(shardIndices.length);
+
+        for (final int shardIndex : shardIndices) {
+            responseFutures.add(futuresByShard.get(shardIndex).next());
+        }
+
+        return new PushNotificationBatchFuture<>(responseFutures);
+    }
+
+    int getShardIndex(final ApnsPushNotification notification) {
+        if (this.clients.length == 1) {
+            return 0;
+        }
+
+        switch (this.shardingStrategy) {
+            case TOKEN_HASH: {
+                final String token = notification.getToken();
+
+                // Tokens are case-insensitive, and the same device should always map to the same shard regardless of
+                // how its token is written
+                int hash = 0;
+
+                for (int i = 0; i < token.length(); i++) {
+                    hash = (31 * hash) + Character.toLowerCase(token.charAt(i));
+                }
+
+                return Math.floorMod(hash ^ (hash >>> 16), this.clients.length);
+            }
+
+            case ROUND_ROBIN: {
+                return Math.floorMod(this.nextRoundRobinShard.getAndIncrement(), this.clients.length);
+            }
+
+            default: {
+                throw new IllegalStateException("Unexpected sharding strategy: " + this.shardingStrategy);
+            }
+        }
+    }
+
+    /**
+     * <p>Gracefully shuts down all of the clients in this group. Please see {@link ApnsClient#close()} for a detailed
+     * discussion of the shutdown process.</p>
+     *
+     * <p>The returned {@code Future} will be marked as complete when all clients in this group have shut down and (if
+     * no {@code ApnsClientResources} were provided at construction time) the group's resources have shut down. If the
+     * group has already shut down, the returned {@code Future} will be marked as complete immediately.</p>
+     *
+     * @return a {@code Future} that will be marked as complete when all clients in this group have finished shutting
+     * down
+     */
+    public CompletableFuture<Void> close() {
+        if (!this.isClosed.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final CompletableFuture<?>[] clientCloseFutures = new CompletableFuture<?>[this.clients.length];
+
+        for (int i = 0; i < this.clients.length; i++) {
+            clientCloseFutures[i] = this.clients[i].close();
+        }
+
+        final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+
+        CompletableFuture.allOf(clientCloseFutures).whenComplete((ignored, cause) -> {
+            if (this.authenticationTokenProvider != null) {
+                this.authenticationTokenProvider.close();
+            }
+
+            if (this.shouldShutDownClientResources) {
+                this.clientResources.shutdownGracefully().addListener(future -> closeFuture.complete(null));
+            } else {
+                closeFuture.complete(null);
+            }
+        });
+
+        return closeFuture;
+    }
+}
@@ -22,9 +22,10 @@
 
 package com.eatthepath.pushy.apns;
 
-import com.eatthepath.json.JsonParser;
+import com.eatthepath.pushy.apns.util.DeviceToken;
 import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -45,9 +46,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameListener, Http2Connection.Listener {
@@ -58,10 +59,23 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
     private final Http2Connection.PropertyKey responsePromisePropertyKey;
     private final Http2Connection.PropertyKey streamErrorCausePropertyKey;
 
-    private final String authority;
+    private final AsciiString authority;
+    private final boolean usePooledDirectPayloadBuffers;
+
+    // Notifications tend to share a small number of topic/push type/priority combinations, so we prepare the headers
+    // that depend only on those values once per combination and copy them into each outgoing set of headers
+    private final Map<HeaderTemplateKey, Http2Headers> headerTemplates = new HashMap<>();
 
     private Throwable connectionErrorCause;
 
+    // Only ever written from the channel's event loop, but may be read from any thread
+    private volatile int pendingNotificationCount;
+    private volatile int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+
+    // HTTP/2 allows servers to leave the number of concurrent streams unlimited by never specifying a limit, but we need
+    // a finite number to reason about spare capacity; this is the minimum limit RFC 7540 recommends servers allow
+    static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
     private static final AsciiString APNS_PATH_PREFIX = new AsciiString("/3/device/");
     private static final AsciiString APNS_EXPIRATION_HEADER = new AsciiString("apns-expiration");
     private static final AsciiString APNS_TOPIC_HEADER = new AsciiString("apns-topic");
@@ -71,19 +85,20 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
     private static final AsciiString APNS_UNIQUE_ID_HEADER = new AsciiString("apns-unique-id");
     private static final AsciiString APNS_PUSH_TYPE_HEADER = new AsciiString("apns-push-type");
 
+    private static final int MAX_HEADER_TEMPLATES = 64;
+
     private static final IOException STREAMS_EXHAUSTED_EXCEPTION =
             new IOException("HTTP/2 streams exhausted; closing connection.");
 
     private static final IOException STREAM_CLOSED_BEFORE_REPLY_EXCEPTION =
             new IOException("Stream closed before a reply was received");
 
-    private final JsonParser jsonParser = new JsonParser();
-
     private static final Logger log = LoggerFactory.getLogger(ApnsClientHandler.class);
 
     public static class ApnsClientHandlerBuilder extends AbstractHttp2ConnectionHandlerBuilder<ApnsClientHandler, ApnsClientHandlerBuilder> {
 
         private String authority;
+        private boolean usePooledDirectPayloadBuffers;
 
         ApnsClientHandlerBuilder authority(final String authority) {
             this.authority = authority;
@@ -94,6 +109,15 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
             return this.authority;
         }
 
+        ApnsClientHandlerBuilder usePooledDirectPayloadBuffers(final boolean usePooledDirectPayloadBuffers) {
+            this.usePooledDirectPayloadBuffers = usePooledDirectPayloadBuffers;
+            return this;
+        }
+
+        boolean usePooledDirectPayloadBuffers() {
+            return this.usePooledDirectPayloadBuffers;
+        }
+
         @Override
         public ApnsClientHandlerBuilder frameLogger(final Http2FrameLogger frameLogger) {
             return super.frameLogger(frameLogger);
@@ -118,7 +142,7 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
         public ApnsClientHandler build(final Http2ConnectionDecoder decoder, final Http2ConnectionEncoder encoder, final Http2Settings initialSettings) {
             Objects.requireNonNull(this.authority(), "Authority must be set before building an ApnsClientHandler.");
 
-            final ApnsClientHandler handler = new ApnsClientHandler(decoder, encoder, initialSettings, this.authority());
+            final ApnsClientHandler handler = new ApnsClientHandler(decoder, encoder, initialSettings, this.authority(), this.usePooledDirectPayloadBuffers());
             this.frameListener(handler);
             return handler;
         }
@@ -129,10 +153,11 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
         }
     }
 
-    ApnsClientHandler(final Http2ConnectionDecoder decoder, final Http2ConnectionEncoder encoder, final Http2Settings initialSettings, final String authority) {
+    ApnsClientHandler(final Http2ConnectionDecoder decoder, final Http2ConnectionEncoder encoder, final Http2Settings initialSettings, final String authority, final boolean usePooledDirectPayloadBuffers) {
         super(decoder, encoder, initialSettings);
 
-        this.authority = authority;
+        this.authority = AsciiString.of(authority);
+        this.usePooledDirectPayloadBuffers = usePooledDirectPayloadBuffers;
 
         this.responseHeadersPropertyKey = this.connection().newKey();
         this.responsePromisePropertyKey = this.connection().newKey();
@@ -172,6 +197,12 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
 
     private void writePushNotification(final ChannelHandlerContext context, final PushNotificationFuture<?, ?> responsePromise, final ChannelPromise writePromise) {
         if (context.channel().isActive()) {
+            final ApnsPushNotification pushNotification = responsePromise.getPushNotification();
+
+            // Get our hands on the payload before doing anything else; this may fail if a pre-encoded payload buffer has
+            // already been released, and we don't want to leave a half-written stream behind if that happens.
+            final ByteBuf payloadBuffer = this.getPayloadBuffer(context, pushNotification);
+
             final int streamId = this.connection().local().incrementAndGetNextStreamId();
 
             if (streamId > 0) {
@@ -180,7 +211,7 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
                 // will actually be created, and so we attach these in the onStreamAdded listener to make sure everything
                 // is happening in a predictable order.
                 this.unattachedResponsePromisesByStreamId.put(streamId, responsePromise);
-                final ApnsPushNotification pushNotification = responsePromise.getPushNotification();
+                this.updateStreamCounts();
 
                 final Http2Headers headers = getHeadersForPushNotification(pushNotification, context, streamId);
 
@@ -188,12 +219,12 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
                 this.encoder().writeHeaders(context, streamId, headers, 0, false, headersPromise);
                 log.trace("Wrote headers on stream {}: {}", streamId, headers);
 
-                final ByteBuf payloadBuffer =
-                        Unpooled.wrappedBuffer(pushNotification.getPayload().getBytes(StandardCharsets.UTF_8));
-
                 final ChannelPromise dataPromise = context.newPromise();
                 this.encoder().writeData(context, streamId, payloadBuffer, 0, true, dataPromise);
-                log.trace("Wrote payload on stream {}: {}", streamId, pushNotification.getPayload());
+
+                if (log.isTraceEnabled()) {
+                    log.trace("Wrote payload on stream {}: {}", streamId, pushNotification.getPayload());
+                }
 
                 final PromiseCombiner promiseCombiner = new PromiseCombiner(context.executor());
                 promiseCombiner.addAll((ChannelFuture) headersPromise, dataPromise);
@@ -202,6 +233,7 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
                 // This is very unlikely, but in the event that we run out of stream IDs, we need to open a new
                 // connection. Just closing the context should be enough; automatic reconnection should take things
                 // from there.
+                payloadBuffer.release();
                 writePromise.tryFailure(STREAMS_EXHAUSTED_EXCEPTION);
                 context.channel().close();
             }
@@ -210,35 +242,112 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
         }
     }
 
+    private ByteBuf getPayloadBuffer(final ChannelHandlerContext context, final ApnsPushNotification pushNotification) {
+        if (pushNotification instanceof PreEncodedApnsPushNotification) {
+            return ((PreEncodedApnsPushNotification) pushNotification).getEncodedPayload().retainedDuplicate();
+        }
+
+        final String payload = pushNotification.getPayload();
+
+        if (this.usePooledDirectPayloadBuffers) {
+            // Encoding straight into a (pooled) direct buffer spares us a throwaway byte array here and saves the TLS
+            // layer from having to copy a heap buffer into a direct buffer before encryption
+            final ByteBuf payloadBuffer = context.alloc().directBuffer(ByteBufUtil.utf8Bytes(payload));
+            ByteBufUtil.writeUtf8(payloadBuffer, payload);
+
+            return payloadBuffer;
+        }
+
+        return Unpooled.wrappedBuffer(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the maximum number of concurrent streams the server will allow on this handler's connection as reported
+     * in the server's most recent {@code SETTINGS} frame, or {@link #DEFAULT_MAX_CONCURRENT_STREAMS} if the server has
+     * not (yet) specified a limit. This method may be called from any thread.
+     *
+     * @return the maximum number of concurrent streams the server will allow on this handler's connection
+     */
+    int getMaxConcurrentStreams() {
+        return this.maxConcurrentStreams;
+    }
+
+    /**
+     * Returns the number of additional notifications this handler could send immediately without waiting for a stream
+     * to become available. The returned value will be negative if notifications are already waiting for streams. This
+     * method may be called from any thread.
+     *
+     * @return the number of additional notifications this handler could send immediately
+     */
+    int getAvailableStreamCapacity() {
+        return this.maxConcurrentStreams - this.pendingNotificationCount;
+    }
+
+    private void updateStreamCounts() {
+        this.pendingNotificationCount =
+                this.unattachedResponsePromisesByStreamId.size() + this.connection().numActiveStreams();
+    }
+
     protected Http2Headers getHeadersForPushNotification(final ApnsPushNotification pushNotification, final ChannelHandlerContext context, final int streamId) {
         final Http2Headers headers = new DefaultHttp2Headers()
-                .method(HttpMethod.POST.asciiName())
-                .authority(this.authority)
-                .path(APNS_PATH_PREFIX.concat(pushNotification.getToken()))
-                .scheme(HttpScheme.HTTPS.name())
+                .add(this.getHeaderTemplate(pushNotification))
+                .path(getPath(pushNotification))
                 .addInt(APNS_EXPIRATION_HEADER, pushNotification.getExpiration() == null ? 0 : (int) pushNotification.getExpiration().getEpochSecond());
 
         if (pushNotification.getCollapseId() != null) {
             headers.add(APNS_COLLAPSE_ID_HEADER, pushNotification.getCollapseId());
         }
 
-        if (pushNotification.getPriority() != null) {
-            headers.addInt(APNS_PRIORITY_HEADER, pushNotification.getPriority().getCode());
+        if (pushNotification.getApnsId() != null) {
+            headers.add(APNS_ID_HEADER, pushNotification.getApnsId().toString());
+        }
+
+        return headers;
+    }
+
+    private static AsciiString getPath(final ApnsPushNotification pushNotification) {
+        final DeviceToken deviceToken = pushNotification.getDeviceToken();
+
+        return deviceToken != null ? deviceToken.getPath() : APNS_PATH_PREFIX.concat(pushNotification.getToken());
+    }
+
+    private Http2Headers getHeaderTemplate(final ApnsPushNotification pushNotification) {
+        final HeaderTemplateKey key = new HeaderTemplateKey(pushNotification.getTopic(),
+                pushNotification.getPushType(), pushNotification.getPriority());
+
+        Http2Headers template = this.headerTemplates.get(key);
+
+        if (template == null) {
+            template = this.buildHeaderTemplate(key);
+
+            // Notifications with unusually varied topics shouldn't be able to grow the cache without bound
+            if (this.headerTemplates.size() < MAX_HEADER_TEMPLATES) {
+                this.headerTemplates.put(key, template);
+            }
         }
 
-        if (pushNotification.getPushType() != null) {
-            headers.add(APNS_PUSH_TYPE_HEADER, pushNotification.getPushType().getHeaderValue());
+        return template;
+    }
+
+    private Http2Headers buildHeaderTemplate(final HeaderTemplateKey key) {
+        final Http2Headers template = new DefaultHttp2Headers()
+                .method(HttpMethod.POST.asciiName())
+                .authority(this.authority)
+                .scheme(HttpScheme.HTTPS.name());
+
+        if (key.priority != null) {
+            template.add(APNS_PRIORITY_HEADER, AsciiString.of(String.valueOf(key.priority.getCode())));
         }
 
-        if (pushNotification.getTopic() != null) {
-            headers.add(APNS_TOPIC_HEADER, pushNotification.getTopic());
+        if (key.pushType != null) {
+            template.add(APNS_PUSH_TYPE_HEADER, AsciiString.of(key.pushType.getHeaderValue()));
         }
 
-        if (pushNotification.getApnsId() != null) {
-            headers.add(APNS_ID_HEADER, pushNotification.getApnsId().toString());
+        if (key.topic != null) {
+            template.add(APNS_TOPIC_HEADER, AsciiString.of(key.topic));
         }
 
-        return headers;
+        return template;
     }
 
     @Override
@@ -288,19 +397,17 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
 
         final ApnsPushNotification pushNotification = responseFuture.getPushNotification();
 
-        final HttpResponseStatus status = HttpResponseStatus.parseLine(headers.status());
-
-        if (HttpResponseStatus.OK.equals(status)) {
-            responseFuture.complete(new SimplePushNotificationResponse<>(responseFuture.getPushNotification(),
-                    true, getApnsIdFromHeaders(headers), getApnsUniqueIdFromHeaders(headers),
-                    status.code(), null, null));
+        // Most responses are acceptances, which we can recognize without parsing the status line; we defer decoding
+        // response identifiers until somebody actually asks for them
+        if (HttpResponseStatus.OK.codeAsText().contentEquals(headers.status())) {
+            responseFuture.complete(new AcceptedPushNotificationResponse<>(responseFuture.getPushNotification(),
+                    headers.get(APNS_ID_HEADER), headers.get(APNS_UNIQUE_ID_HEADER)));
         } else {
             if (data != null) {
                 ErrorResponse errorResponse;
 
                 try {
-                    errorResponse = ErrorResponse.fromMap(
-                            jsonParser.parseJsonObject(data.toString(StandardCharsets.UTF_8)));
+                    errorResponse = ErrorResponse.fromByteBuf(data);
                 } catch (final ParseException e) {
                     log.error("Failed to parse error response: {}", data.toString(StandardCharsets.UTF_8));
                     errorResponse = new ErrorResponse(null, null);
@@ -320,28 +427,9 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
         final HttpResponseStatus status = HttpResponseStatus.parseLine(headers.status());
 
         responseFuture.complete(new SimplePushNotificationResponse<>(responseFuture.getPushNotification(),
-                HttpResponseStatus.OK.equals(status), getApnsIdFromHeaders(headers),
-                getApnsUniqueIdFromHeaders(headers), status.code(),
-                errorResponse.getReason(), errorResponse.getTimestamp()));
-    }
-
-    private static UUID getApnsIdFromHeaders(final Http2Headers headers) {
-        return getUUIDFromHeaders(headers, APNS_ID_HEADER);
-    }
-
-    private static UUID getApnsUniqueIdFromHeaders(final Http2Headers headers) {
-        return getUUIDFromHeaders(headers, APNS_UNIQUE_ID_HEADER);
-    }
-
-    private static UUID getUUIDFromHeaders(final Http2Headers headers, final AsciiString header) {
-        final CharSequence uuidSequence = headers.get(header);
-
-        try {
-            return uuidSequence != null ? UUID.fromString(uuidSequence.toString()) : null;
-        } catch (final IllegalArgumentException e) {
-            log.error("Failed to parse `{}` header: {}", header, uuidSequence, e);
-            return null;
-        }
+                HttpResponseStatus.OK.equals(status), headers.get(APNS_ID_HEADER),
+                headers.get(APNS_UNIQUE_ID_HEADER), status.code(),
+                errorResponse.getReason(), errorResponse.getRejectionReason(), errorResponse.getTimestamp()));
     }
 
     @Override
@@ -367,6 +455,10 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
     public void onSettingsRead(final ChannelHandlerContext context, final Http2Settings settings) {
         log.debug("Received settings from APNs gateway: {}", settings);
 
+        if (settings.maxConcurrentStreams() != null) {
+            this.maxConcurrentStreams = (int) Math.min(settings.maxConcurrentStreams(), Integer.MAX_VALUE);
+        }
+
         // Always try to mark the "channel ready" promise as a success after we receive a SETTINGS frame. If it's the
         // first SETTINGS frame, we know all handshaking and connection setup is done and the channel is ready to use.
         // If it's a subsequent SETTINGS frame, this will have no effect.
@@ -406,6 +498,7 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
 
     @Override
     public void onStreamActive(final Http2Stream stream) {
+        this.updateStreamCounts();
     }
 
     @Override
@@ -414,6 +507,8 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
 
     @Override
     public void onStreamClosed(final Http2Stream stream) {
+        this.updateStreamCounts();
+
         // Always try to fail promises associated with closed streams; most of the time, this should fail silently, but
         // in cases of unexpected closure, it will make sure that nothing gets left hanging.
         final CompletableFuture<PushNotificationResponse<ApnsPushNotification>> responsePromise =
@@ -474,6 +569,7 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
         }
 
         this.unattachedResponsePromisesByStreamId.clear();
+        this.updateStreamCounts();
 
         if (getChannelReadyPromise(context.channel()).tryFailure(STREAM_CLOSED_BEFORE_REPLY_EXCEPTION)) {
             log.debug("Channel became inactive before SETTINGS frame received");
@@ -491,4 +587,29 @@ class ApnsClientHandler extends Http2ConnectionHandler implements Http2FrameList
     private Promise<Channel> getChannelReadyPromise(final Channel channel) {
         return channel.attr(ApnsChannelFactory.CHANNEL_READY_PROMISE_ATTRIBUTE_KEY).get();
     }
+
+    private static final class HeaderTemplateKey {
+        private final String topic;
+        private final PushType pushType;
+        private final DeliveryPriority priority;
+
+        private HeaderTemplateKey(final String topic, final PushType pushType, final DeliveryPriority priority) {
+            this.topic = topic;
+            this.pushType = pushType;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final HeaderTemplateKey that = (HeaderTemplateKey) o;
+            return Objects.equals(topic, that.topic) && pushType == that.pushType && priority == that.priority;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, pushType, priority);
+        }
+    }
 }
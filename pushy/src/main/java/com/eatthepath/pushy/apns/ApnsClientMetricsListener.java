@@ -56,7 +56,8 @@ public interface ApnsClientMetricsListener {
     /**
      * Indicates that a notification was sent to the APNs server. Note that a sent notification may still be either
      * accepted or rejected by the APNs server later; sending the notification doesn't imply anything about the ultimate
-     * state of the notification.
+     * state of the notification. If the client retries failed notifications, this method is called only once for each
+     * notification, even if the notification is written to the server more than once.
      *
      * @param topic the APNs topic to which the notification was sent
      *
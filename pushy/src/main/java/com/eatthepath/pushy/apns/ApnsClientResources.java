@@ -1,11 +1,19 @@
 package com.eatthepath.pushy.apns;
 
+import com.eatthepath.pushy.apns.util.EventLoopGroupUtil;
 import io.netty.channel.EventLoopGroup;
 import io.netty.resolver.dns.DefaultDnsServerAddressStreamProvider;
 import io.netty.resolver.dns.RoundRobinDnsAddressResolverGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * APNs client resources are bundles of relatively "expensive" objects (thread pools, DNS resolvers, etc.) that can be
@@ -22,6 +30,13 @@ public class ApnsClientResources {
   private final EventLoopGroup eventLoopGroup;
   private final RoundRobinDnsAddressResolverGroup roundRobinDnsAddressResolverGroup;
 
+  // Created on demand for clients that retry notifications
+  private volatile HashedWheelTimer retryTimer;
+
+  private static final long RETRY_TIMER_TICK_MILLIS = 10;
+
+  private static final Logger log = LoggerFactory.getLogger(ApnsClientResources.class);
+
   /**
    * Constructs a new set of client resources that uses the given default event loop group. Clients that use this
    * resource set will use the given event loop group for IO operations.
@@ -36,6 +51,31 @@ public class ApnsClientResources {
         DefaultDnsServerAddressStreamProvider.INSTANCE);
   }
 
+  /**
+   * Constructs a new set of client resources with an event loop group sized for a client with the given number of
+   * concurrent connections. The event loop group will have one thread per connection (up to the number of available
+   * processors) so that TLS and HTTP/2 work for different connections can proceed in parallel, and will use the best
+   * transport available on the current platform. Clients that manage their own resources use resources constructed by
+   * this method.
+   *
+   * @param concurrentConnections the number of concurrent connections the client using these resources will maintain
+   *
+   * @return a new set of client resources sized for the given number of concurrent connections
+   *
+   * @see ApnsClientBuilder#setConcurrentConnections(int)
+   * @see EventLoopGroupUtil#newEventLoopGroup(int)
+   *
+   * @since 0.16
+   */
+  public static ApnsClientResources forConcurrentConnections(final int concurrentConnections) {
+    return new ApnsClientResources(EventLoopGroupUtil.newEventLoopGroup(
+        getEventLoopThreadCount(concurrentConnections, Runtime.getRuntime().availableProcessors())));
+  }
+
+  static int getEventLoopThreadCount(final int concurrentConnections, final int availableProcessors) {
+    return Math.max(1, Math.min(concurrentConnections, availableProcessors));
+  }
+
   /**
    * Returns the event loop group for this resource set.
    *
@@ -54,6 +94,32 @@ public class ApnsClientResources {
     return roundRobinDnsAddressResolverGroup;
   }
 
+  /**
+   * Returns a timer for scheduling notification retries, creating it if necessary. A single hashed wheel timer serves
+   * all clients that share this resource set; hashed wheel timers handle large numbers of short-lived timeouts cheaply,
+   * but each one has its own thread.
+   *
+   * @return a timer for scheduling notification retries
+   */
+  Timer getRetryTimer() {
+    HashedWheelTimer timer = this.retryTimer;
+
+    if (timer == null) {
+      synchronized (this) {
+        timer = this.retryTimer;
+
+        if (timer == null) {
+          timer = new HashedWheelTimer(new DefaultThreadFactory("pushy-retry-timer", true),
+              RETRY_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+          this.retryTimer = timer;
+        }
+      }
+    }
+
+    return timer;
+  }
+
   /**
    * Gracefully shuts down any long-lived resources in this resource group. If callers manage their own
    * {@code ApnsClientResources} instances (as opposed to using default resources provided by {@link ApnsClientBuilder},
@@ -65,6 +131,21 @@ public class ApnsClientResources {
    */
   public Future<?> shutdownGracefully() {
     roundRobinDnsAddressResolverGroup.close();
+
+    final HashedWheelTimer timer = this.retryTimer;
+
+    if (timer != null) {
+      // Clients using these resources should already have shut down; running any leftover retries now will fail them
+      // right away instead of leaving their futures hanging
+      for (final Timeout timeout : timer.stop()) {
+        try {
+          timeout.task().run(timeout);
+        } catch (final Exception e) {
+          log.warn("Failed to run leftover retry task while shutting down", e);
+        }
+      }
+    }
+
     return eventLoopGroup.shutdownGracefully();
   }
 }
@@ -23,6 +23,7 @@
 package com.eatthepath.pushy.apns;
 
 import com.eatthepath.pushy.apns.util.ApnsPayloadBuilder;
+import com.eatthepath.pushy.apns.util.DeviceToken;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -55,6 +56,21 @@ public interface ApnsPushNotification {
      */
     String getToken();
 
+    /**
+     * Returns a pre-parsed representation of the token of the device to which this push notification is to be sent. If
+     * present, the device token must represent the same token as {@link #getToken()}, and clients will use the device
+     * token's prepared request path instead of building a new path from the token string. The default implementation
+     * returns {@code null}.
+     *
+     * @return a pre-parsed representation of the token of the device to which this push notification is to be sent;
+     * may be {@code null}
+     *
+     * @since 0.16
+     */
+    default DeviceToken getDeviceToken() {
+        return null;
+    }
+
     /**
      * Returns the JSON-encoded payload of this push notification.
      *
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An enumeration of the reasons an APNs server may give for rejecting a push notification. The most up-to-date
+ * descriptions of each rejection reason are available in Apple's documentation.
+ *
+ * @see PushNotificationResponse#getApnsRejectionReason()
+ * @see <a href="https://developer.apple.com/documentation/usernotifications/handling-notification-responses-from-apns">Handling
+ * notification responses from APNs</a>
+ *
+ * @since 0.16
+ */
+public enum ApnsRejectionReason {
+
+    /**
+     * The collapse identifier exceeds the maximum allowed size.
+     */
+    BAD_COLLAPSE_ID("BadCollapseId"),
+
+    /**
+     * The specified device token is invalid, or the device token does not match the environment of the APNs server.
+     */
+    BAD_DEVICE_TOKEN("BadDeviceToken"),
+
+    /**
+     * The {@code apns-expiration} value is invalid.
+     */
+    BAD_EXPIRATION_DATE("BadExpirationDate"),
+
+    /**
+     * The {@code apns-id} value is invalid.
+     */
+    BAD_MESSAGE_ID("BadMessageId"),
+
+    /**
+     * The {@code apns-priority} value is invalid.
+     */
+    BAD_PRIORITY("BadPriority"),
+
+    /**
+     * The {@code apns-topic} value is invalid.
+     */
+    BAD_TOPIC("BadTopic"),
+
+    /**
+     * The device token does not match the specified topic.
+     */
+    DEVICE_TOKEN_NOT_FOR_TOPIC("DeviceTokenNotForTopic"),
+
+    /**
+     * One or more headers are repeated.
+     */
+    DUPLICATE_HEADERS("DuplicateHeaders"),
+
+    /**
+     * The connection was idle for too long.
+     */
+    IDLE_TIMEOUT("IdleTimeout"),
+
+    /**
+     * The {@code apns-push-type} value is invalid.
+     */
+    INVALID_PUSH_TYPE("InvalidPushType"),
+
+    /**
+     * The device token was not specified in the request path.
+     */
+    MISSING_DEVICE_TOKEN("MissingDeviceToken"),
+
+    /**
+     * The {@code apns-topic} header was missing and is required.
+     */
+    MISSING_TOPIC("MissingTopic"),
+
+    /**
+     * The notification payload was empty.
+     */
+    PAYLOAD_EMPTY("PayloadEmpty"),
+
+    /**
+     * Pushing to this topic is not allowed.
+     */
+    TOPIC_DISALLOWED("TopicDisallowed"),
+
+    /**
+     * The certificate is invalid.
+     */
+    BAD_CERTIFICATE("BadCertificate"),
+
+    /**
+     * The client certificate is for the wrong environment.
+     */
+    BAD_CERTIFICATE_ENVIRONMENT("BadCertificateEnvironment"),
+
+    /**
+     * The provider token is stale and a new token should be generated.
+     */
+    EXPIRED_PROVIDER_TOKEN("ExpiredProviderToken"),
+
+    /**
+     * The specified action is not allowed.
+     */
+    FORBIDDEN("Forbidden"),
+
+    /**
+     * The provider token is not valid, or the token signature can't be verified.
+     */
+    INVALID_PROVIDER_TOKEN("InvalidProviderToken"),
+
+    /**
+     * No provider certificate was used to connect to APNs, and the authorization header is missing or no provider
+     * token is specified.
+     */
+    MISSING_PROVIDER_TOKEN("MissingProviderToken"),
+
+    /**
+     * The key ID in the provider token isn't related to the key ID of the token used in the first push of this
+     * connection.
+     */
+    UNRELATED_KEY_ID_IN_TOKEN("UnrelatedKeyIdInToken"),
+
+    /**
+     * The device token has expired.
+     */
+    EXPIRED_TOKEN("ExpiredToken"),
+
+    /**
+     * The request contained an invalid {@code :path} value.
+     */
+    BAD_PATH("BadPath"),
+
+    /**
+     * The specified {@code :method} value isn't {@code POST}.
+     */
+    METHOD_NOT_ALLOWED("MethodNotAllowed"),
+
+    /**
+     * The device token is inactive for the specified topic.
+     *
+     * @see PushNotificationResponse#getTokenInvalidationTimestamp()
+     */
+    UNREGISTERED("Unregistered"),
+
+    /**
+     * The message payload is too large.
+     */
+    PAYLOAD_TOO_LARGE("PayloadTooLarge"),
+
+    /**
+     * The provider's authentication token is being updated too often.
+     */
+    TOO_MANY_PROVIDER_TOKEN_UPDATES("TooManyProviderTokenUpdates"),
+
+    /**
+     * Too many requests were made consecutively to the same device token.
+     */
+    TOO_MANY_REQUESTS("TooManyRequests"),
+
+    /**
+     * An internal server error occurred.
+     */
+    INTERNAL_SERVER_ERROR("InternalServerError"),
+
+    /**
+     * The service is unavailable.
+     */
+    SERVICE_UNAVAILABLE("ServiceUnavailable"),
+
+    /**
+     * The APNs server is shutting down.
+     */
+    SHUTDOWN("Shutdown");
+
+    private final String reasonText;
+
+    private static final Map<String, ApnsRejectionReason> REJECTION_REASONS_BY_TEXT = new HashMap<>();
+
+    static {
+        for (final ApnsRejectionReason rejectionReason : values()) {
+            REJECTION_REASONS_BY_TEXT.put(rejectionReason.reasonText, rejectionReason);
+        }
+    }
+
+    ApnsRejectionReason(final String reasonText) {
+        this.reasonText = reasonText;
+    }
+
+    /**
+     * Returns the text the APNs server uses to identify this rejection reason (e.g. "BadDeviceToken").
+     *
+     * @return the text the APNs server uses to identify this rejection reason
+     */
+    public String getReasonText() {
+        return this.reasonText;
+    }
+
+    /**
+     * Returns the rejection reason identified by the given text.
+     *
+     * @param reasonText the text the APNs server uses to identify a rejection reason
+     *
+     * @return the rejection reason identified by the given text, or {@code null} if the given text does not identify a
+     * known rejection reason
+     */
+    public static ApnsRejectionReason getFromReasonText(final String reasonText) {
+        return reasonText != null ? REJECTION_REASONS_BY_TEXT.get(reasonText) : null;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.auth.ApnsSigningKey;
+import com.eatthepath.pushy.apns.auth.AuthenticationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>An authentication token provider supplies signed authentication tokens to all of a client's connections. The
+ * provider signs a new token once per token expiration period and shares it among all connections, which means that
+ * signing costs don't grow with the number of connections and that all connections present the same token to the APNs
+ * server (which limits how often a provider may present new tokens).</p>
+ *
+ * <p>Tokens are signed when the provider is constructed and then refreshed in the background, so callers of
+ * {@link #getAuthenticationToken()} never need to wait for a new signature. Refreshes happen a little ahead of the
+ * configured token expiration, and the lead time is randomized so that several clients sharing a signing key don't all
+ * rotate their tokens at the same moment. Because connections read the current token for every request, rotating a
+ * token never requires closing a connection.</p>
+ */
+class AuthenticationTokenProvider implements Closeable {
+
+    private final ApnsSigningKey signingKey;
+    private final Duration tokenExpiration;
+    private final ScheduledExecutorService executor;
+
+    private volatile AuthenticationToken authenticationToken;
+
+    private ScheduledFuture<?> refreshFuture;
+    private boolean closed = false;
+
+    /**
+     * The maximum fraction of the token expiration period by which a refresh may be moved ahead of the expiration time.
+     */
+    private static final double MAX_REFRESH_JITTER_FRACTION = 0.1;
+
+    /**
+     * The minimum age of a token before it may be replaced in response to an "expired token" report from the server;
+     * reports about tokens younger than this almost certainly refer to a token that has already been replaced.
+     */
+    static final Duration MIN_EXPIRED_TOKEN_AGE = Duration.ofMinutes(1);
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationTokenProvider.class);
+
+    /**
+     * Constructs a new authentication token provider and signs an initial authentication token.
+     *
+     * @param signingKey the key with which to sign authentication tokens
+     * @param tokenExpiration the duration after which authentication tokens should be replaced
+     * @param executor the executor on which to refresh authentication tokens
+     */
+    AuthenticationTokenProvider(final ApnsSigningKey signingKey, final Duration tokenExpiration, final ScheduledExecutorService executor) {
+        this.signingKey = Objects.requireNonNull(signingKey, "Signing key must not be null.");
+        this.tokenExpiration = Objects.requireNonNull(tokenExpiration, "Token expiration must not be null.");
+        this.executor = Objects.requireNonNull(executor, "Executor must not be null.");
+
+        this.refreshAuthenticationToken();
+    }
+
+    /**
+     * Returns the current authentication token. The returned token may be replaced at any time, and callers should
+     * call this method again for each request rather than retaining the returned token.
+     *
+     * @return the current authentication token
+     */
+    AuthenticationToken getAuthenticationToken() {
+        return this.authenticationToken;
+    }
+
+    /**
+     * Replaces the current authentication token immediately if the server has reported that it has expired. Reports
+     * about tokens issued less than {@link #MIN_EXPIRED_TOKEN_AGE} ago are ignored, since they most likely refer to
+     * a token that has already been replaced and replacing tokens too frequently may cause the server to reject them.
+     */
+    void handleExpiredToken() {
+        synchronized (this) {
+            if (!this.closed && this.authenticationToken.getIssuedAt().plus(MIN_EXPIRED_TOKEN_AGE).isBefore(Instant.now())) {
+                log.debug("Server reported that the current authentication token has expired; replacing token early");
+
+                this.refreshFuture.cancel(false);
+                this.refreshAuthenticationToken();
+            }
+        }
+    }
+
+    private void refreshAuthenticationToken() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.authenticationToken = new AuthenticationToken(this.signingKey, Instant.now());
+            log.debug("Generated a new authentication token");
+
+            this.refreshFuture = this.executor.schedule(this::refreshAuthenticationToken,
+                    getRefreshDelayMillis(this.tokenExpiration), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static long getRefreshDelayMillis(final Duration tokenExpiration) {
+        final long expirationMillis = tokenExpiration.toMillis();
+        final long maxJitterMillis = (long) (expirationMillis * MAX_REFRESH_JITTER_FRACTION);
+
+        return expirationMillis - ThreadLocalRandom.current().nextLong(maxJitterMillis + 1);
+    }
+
+    /**
+     * Stops refreshing authentication tokens. The most recent token remains available via
+     * {@link #getAuthenticationToken()}.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+
+            if (this.refreshFuture != null) {
+                this.refreshFuture.cancel(false);
+                this.refreshFuture = null;
+            }
+        }
+    }
+}
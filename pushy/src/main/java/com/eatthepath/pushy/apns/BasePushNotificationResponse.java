@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A base class for {@link PushNotificationResponse} implementations that holds a response's push notification and
+ * the raw values of its identifier headers, which are decoded the first time they're requested.
+ */
+abstract class BasePushNotificationResponse<T extends ApnsPushNotification> implements PushNotificationResponse<T> {
+    private final T pushNotification;
+
+    // Identifier headers are decoded on first read; the raw sequences are cleared once they've been decoded
+    private volatile CharSequence apnsIdSequence;
+    private volatile CharSequence apnsUniqueIdSequence;
+    private UUID apnsId;
+    private UUID apnsUniqueId;
+
+    BasePushNotificationResponse(final T pushNotification, final CharSequence apnsIdSequence, final CharSequence apnsUniqueIdSequence) {
+        this.pushNotification = pushNotification;
+        this.apnsIdSequence = apnsIdSequence;
+        this.apnsUniqueIdSequence = apnsUniqueIdSequence;
+    }
+
+    @Override
+    public T getPushNotification() {
+        return this.pushNotification;
+    }
+
+    @Override
+    public UUID getApnsId() {
+        if (this.apnsIdSequence != null) {
+            synchronized (this) {
+                if (this.apnsIdSequence != null) {
+                    this.apnsId = UUIDUtil.fromHeaderValue(this.apnsIdSequence, "apns-id");
+                    this.apnsIdSequence = null;
+                }
+            }
+        }
+
+        return this.apnsId;
+    }
+
+    @Override
+    public Optional<UUID> getApnsUniqueId() {
+        if (this.apnsUniqueIdSequence != null) {
+            synchronized (this) {
+                if (this.apnsUniqueIdSequence != null) {
+                    this.apnsUniqueId = UUIDUtil.fromHeaderValue(this.apnsUniqueIdSequence, "apns-unique-id");
+                    this.apnsUniqueIdSequence = null;
+                }
+            }
+        }
+
+        return Optional.ofNullable(this.apnsUniqueId);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A blocking client wraps an {@link ApnsClient} and sends notifications synchronously, blocking the calling thread
+ * until the APNs server has accepted or rejected each notification. Blocking clients are intended for applications
+ * that handle each request on its own thread (including virtual threads on newer JVMs) and would otherwise block on
+ * the futures returned by {@link ApnsClient#sendNotification(ApnsPushNotification)} anyway.</p>
+ *
+ * <p>Blocking clients limit the number of notifications they may have pending at any given time. When a blocking
+ * client is already at its limit, callers wait for another notification to be resolved before their own notification
+ * is passed to the underlying client. This keeps a large number of concurrent callers from flooding the underlying
+ * client's connection pool with work it can't yet handle. Callers wait using only {@code java.util.concurrent}
+ * primitives and never while holding a monitor, so waiting callers running on virtual threads won't pin their carrier
+ * threads.</p>
+ *
+ * <p>Blocking clients are thread-safe. Closing a blocking client's underlying {@code ApnsClient} remains the caller's
+ * responsibility.</p>
+ *
+ * @since 0.16
+ */
+public class BlockingApnsClient {
+
+    private final ApnsClient client;
+    private final Semaphore pendingNotificationPermits;
+
+    /**
+     * Constructs a new blocking client that sends notifications via the given client and allows up to the given number
+     * of notifications to be pending at any given time.
+     *
+     * @param client the client via which to send notifications
+     * @param maxPendingNotifications the maximum number of notifications this blocking client may have pending at any
+     * given time; should generally be no more than the underlying client's number of concurrent connections
+     * multiplied by the number of concurrent streams the APNs server allows per connection
+     */
+    public BlockingApnsClient(final ApnsClient client, final int maxPendingNotifications) {
+        if (maxPendingNotifications < 1) {
+            throw new IllegalArgumentException("Maximum number of pending notifications must be positive.");
+        }
+
+        this.client = Objects.requireNonNull(client, "Client must not be null.");
+        this.pendingNotificationPermits = new Semaphore(maxPendingNotifications);
+    }
+
+    /**
+     * <p>Sends a push notification to the APNs gateway and waits for the gateway to accept or reject the notification.
+     * As with {@link ApnsClient#sendNotification(ApnsPushNotification)}, rejections are reported in the returned
+     * response and should be considered permanent, while failures to send the notification are reported by throwing
+     * an {@link ExecutionException} and should generally be considered temporary.</p>
+     *
+     * <p>If the calling thread is interrupted while waiting, the notification may still be sent.</p>
+     *
+     * @param notification the notification to send to the APNs gateway
+     *
+     * @param <T> the type of notification to be sent
+     *
+     * @return the APNs gateway's response to the notification
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     * @throws ExecutionException if the notification could not be sent
+     */
+    public <T extends ApnsPushNotification> PushNotificationResponse<T> sendNotification(final T notification)
+            throws InterruptedException, ExecutionException {
+
+        this.pendingNotificationPermits.acquire();
+
+        return this.sendNotificationWithPermit(notification).get();
+    }
+
+    /**
+     * Sends a push notification to the APNs gateway and waits up to the given amount of time for the gateway to accept
+     * or reject the notification. Please see {@link #sendNotification(ApnsPushNotification)} for details about
+     * rejections and failures.
+     *
+     * @param notification the notification to send to the APNs gateway
+     * @param timeout the maximum amount of time to wait
+     * @param timeUnit the time unit of the {@code timeout} argument
+     *
+     * @param <T> the type of notification to be sent
+     *
+     * @return the APNs gateway's response to the notification
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     * @throws ExecutionException if the notification could not be sent
+     * @throws TimeoutException if the notification was neither accepted nor rejected before the given timeout
+     * elapsed; the notification may still be sent if the timeout elapsed after it was passed to the underlying client
+     */
+    public <T extends ApnsPushNotification> PushNotificationResponse<T> sendNotification(final T notification, final long timeout, final TimeUnit timeUnit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+
+        if (!this.pendingNotificationPermits.tryAcquire(timeout, timeUnit)) {
+            throw new TimeoutException("Timed out while waiting for other pending notifications to resolve.");
+        }
+
+        return this.sendNotificationWithPermit(notification).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private <T extends ApnsPushNotification> CompletableFuture<PushNotificationResponse<T>> sendNotificationWithPermit(final T notification) {
+        // Hold the permit until the notification is resolved (not just until the caller stops waiting) so that callers
+        // who time out or are interrupted can't push the number of pending notifications past the limit; waiting on
+        // the dependent future also guarantees the permit is back before the caller wakes up
+        return this.client.sendNotification(notification)
+                .whenComplete((response, cause) -> this.pendingNotificationPermits.release());
+    }
+
+    /**
+     * Returns the number of additional notifications this blocking client could pass to its underlying client without
+     * waiting.
+     *
+     * @return the number of additional notifications this blocking client could pass to its underlying client without
+     * waiting
+     */
+    int getAvailablePermits() {
+        return this.pendingNotificationPermits.availablePermits();
+    }
+}
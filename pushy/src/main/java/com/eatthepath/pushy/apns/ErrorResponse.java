@@ -22,18 +22,38 @@
 
 package com.eatthepath.pushy.apns;
 
+import com.eatthepath.json.JsonParser;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.time.Instant;
 import java.util.Map;
 
 class ErrorResponse {
     private final String reason;
+    private final ApnsRejectionReason rejectionReason;
     private final Instant timestamp;
 
     public ErrorResponse(final String reason, final Instant timestamp) {
+        this(reason, ApnsRejectionReason.getFromReasonText(reason), timestamp);
+    }
+
+    ErrorResponse(final String reason, final ApnsRejectionReason rejectionReason, final Instant timestamp) {
         this.reason = reason;
+        this.rejectionReason = rejectionReason;
         this.timestamp = timestamp;
     }
 
+    static ErrorResponse fromByteBuf(final ByteBuf data) throws ParseException {
+        final ErrorResponse errorResponse = ErrorResponseParser.parse(data);
+
+        // The streaming parser can handle almost all responses, but we need to fall back to a full JSON parser if the
+        // reason contains escaped characters
+        return errorResponse != null ? errorResponse :
+                fromMap(new JsonParser().parseJsonObject(data.toString(StandardCharsets.UTF_8)));
+    }
+
     static ErrorResponse fromMap(final Map<String, Object> errorResponseMap) {
         String reason;
 
@@ -62,6 +82,10 @@ class ErrorResponse {
         return this.reason;
     }
 
+    ApnsRejectionReason getRejectionReason() {
+        return this.rejectionReason;
+    }
+
     Instant getTimestamp() {
         return this.timestamp;
     }
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Instant;
+
+/**
+ * <p>A special-purpose parser for the JSON bodies of APNs error responses. Rather than decoding the entire body into a
+ * string and parsing it into a map, this parser scans the body in place for the only two fields we care about
+ * ({@code reason} and {@code timestamp}) and skips everything else. Well-known rejection reasons are mapped directly to
+ * {@link ApnsRejectionReason} constants (and their shared reason text), so parsing a typical error response allocates
+ * little beyond the {@link ErrorResponse} itself.</p>
+ *
+ * <p>The parser does not attempt to unescape strings; if the {@code reason} field contains an escape sequence, callers
+ * should fall back to a general-purpose JSON parser.</p>
+ */
+class ErrorResponseParser {
+
+    private final ByteBuf data;
+    private final int end;
+
+    private int index;
+    private boolean requiresFullParse = false;
+
+    private ApnsRejectionReason rejectionReason;
+
+    private static final byte[] REASON_KEY = "reason".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP_KEY = "timestamp".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ApnsRejectionReason[] KNOWN_REASONS = ApnsRejectionReason.values();
+    private static final byte[][] KNOWN_REASON_BYTES = new byte[KNOWN_REASONS.length][];
+
+    static {
+        for (int i = 0; i < KNOWN_REASONS.length; i++) {
+            KNOWN_REASON_BYTES[i] = KNOWN_REASONS[i].getReasonText().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Timestamps with more digits than this may not fit in a long
+    private static final int MAX_TIMESTAMP_DIGITS = 18;
+
+    private ErrorResponseParser(final ByteBuf data) {
+        this.data = data;
+        this.index = data.readerIndex();
+        this.end = data.writerIndex();
+    }
+
+    /**
+     * Parses an error response from the readable bytes of the given buffer without modifying the buffer's reader or
+     * writer indices.
+     *
+     * @param data the buffer containing the body of an error response
+     *
+     * @return the parsed error response, or {@code null} if the body contains a {@code reason} that this parser cannot
+     * decode in place and a general-purpose parser should be used instead
+     *
+     * @throws ParseException if the body is not a well-formed JSON object
+     */
+    static ErrorResponse parse(final ByteBuf data) throws ParseException {
+        return new ErrorResponseParser(data).parseErrorResponse();
+    }
+
+    private ErrorResponse parseErrorResponse() throws ParseException {
+        String reason = null;
+        Instant timestamp = null;
+
+        this.skipWhitespace();
+        this.expect('{');
+        this.skipWhitespace();
+
+        if (this.peek() == '}') {
+            this.index++;
+        } else {
+            while (true) {
+                this.skipWhitespace();
+                this.expect('"');
+
+                final int keyStart = this.index;
+                this.skipStringBody();
+                final int keyLength = this.index - keyStart - 1;
+
+                this.skipWhitespace();
+                this.expect(':');
+                this.skipWhitespace();
+
+                if (this.regionEquals(keyStart, keyLength, REASON_KEY)) {
+                    reason = this.parseReason();
+                } else if (this.regionEquals(keyStart, keyLength, TIMESTAMP_KEY)) {
+                    timestamp = this.parseTimestamp();
+                } else {
+                    this.skipValue();
+                }
+
+                this.skipWhitespace();
+
+                final byte b = this.next();
+
+                if (b == '}') {
+                    break;
+                } else if (b != ',') {
+                    throw new ParseException("Expected ',' or '}', but found '" + (char) b + "'", this.index - 1);
+                }
+            }
+        }
+
+        this.skipWhitespace();
+
+        if (this.index != this.end) {
+            throw new ParseException("Unexpected content after end of object", this.index);
+        }
+
+        return this.requiresFullParse ? null : new ErrorResponse(reason, this.rejectionReason, timestamp);
+    }
+
+    private String parseReason() throws ParseException {
+        this.rejectionReason = null;
+
+        if (this.peek() != '"') {
+            // Mirror the behavior of ErrorResponse#fromMap, which ignores reasons of the wrong type
+            this.skipValue();
+            return null;
+        }
+
+        this.index++;
+
+        final int start = this.index;
+
+        if (this.skipStringBody()) {
+            this.requiresFullParse = true;
+            return null;
+        }
+
+        final int length = this.index - start - 1;
+
+        for (int i = 0; i < KNOWN_REASON_BYTES.length; i++) {
+            if (this.regionEquals(start, length, KNOWN_REASON_BYTES[i])) {
+                this.rejectionReason = KNOWN_REASONS[i];
+                return this.rejectionReason.getReasonText();
+            }
+        }
+
+        return this.data.toString(start, length, StandardCharsets.UTF_8);
+    }
+
+    private Instant parseTimestamp() throws ParseException {
+        final byte first = this.peek();
+
+        if (first != '-' && (first < '0' || first > '9')) {
+            // Mirror the behavior of ErrorResponse#fromMap, which ignores timestamps of the wrong type
+            this.skipValue();
+            return null;
+        }
+
+        final boolean negative = first == '-';
+
+        if (negative) {
+            this.index++;
+        }
+
+        long value = 0;
+        int digits = 0;
+
+        while (this.index < this.end) {
+            final byte b = this.data.getByte(this.index);
+
+            if (b < '0' || b > '9') {
+                break;
+            }
+
+            value = (value * 10) + (b - '0');
+            digits++;
+            this.index++;
+        }
+
+        if (digits == 0) {
+            throw new ParseException("Expected a digit", this.index);
+        }
+
+        if (this.index < this.end) {
+            final byte b = this.data.getByte(this.index);
+
+            if (b == '.' || b == 'e' || b == 'E') {
+                // Not an integer, and so (like ErrorResponse#fromMap) we'll ignore it
+                this.skipNumber();
+                return null;
+            }
+        }
+
+        return digits <= MAX_TIMESTAMP_DIGITS ? Instant.ofEpochMilli(negative ? -value : value) : null;
+    }
+
+    private void skipValue() throws ParseException {
+        final byte b = this.peek();
+
+        switch (b) {
+            case '"': {
+                this.index++;
+                this.skipStringBody();
+                break;
+            }
+
+            case '{':
+            case '[': {
+                this.skipContainer();
+                break;
+            }
+
+            case 't': {
+                this.expectLiteral("true");
+                break;
+            }
+
+            case 'f': {
+                this.expectLiteral("false");
+                break;
+            }
+
+            case 'n': {
+                this.expectLiteral("null");
+                break;
+            }
+
+            default: {
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    this.skipNumber();
+                } else {
+                    throw new ParseException("Unexpected character '" + (char) b + "'", this.index);
+                }
+            }
+        }
+    }
+
+    private void skipContainer() throws ParseException {
+        int depth = 0;
+
+        do {
+            final byte b = this.next();
+
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            } else if (b == '"') {
+                this.skipStringBody();
+            }
+        } while (depth > 0);
+    }
+
+    private void skipNumber() {
+        while (this.index < this.end) {
+            final byte b = this.data.getByte(this.index);
+
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                this.index++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Advances past the closing quote of a string whose opening quote has already been consumed.
+     *
+     * @return {@code true} if the string contained any escape sequences or {@code false} otherwise
+     */
+    private boolean skipStringBody() throws ParseException {
+        boolean escaped = false;
+
+        while (true) {
+            final byte b = this.next();
+
+            if (b == '"') {
+                return escaped;
+            } else if (b == '\\') {
+                escaped = true;
+                this.next();
+            }
+        }
+    }
+
+    private void expectLiteral(final String literal) throws ParseException {
+        for (int i = 0; i < literal.length(); i++) {
+            this.expect(literal.charAt(i));
+        }
+    }
+
+    private void expect(final char expected) throws ParseException {
+        final byte b = this.next();
+
+        if (b != expected) {
+            throw new ParseException("Expected '" + expected + "', but found '" + (char) b + "'", this.index - 1);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (this.index < this.end) {
+            final byte b = this.data.getByte(this.index);
+
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                this.index++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private byte peek() throws ParseException {
+        if (this.index >= this.end) {
+            throw new ParseException("Unexpected end of input", this.index);
+        }
+
+        return this.data.getByte(this.index);
+    }
+
+    private byte next() throws ParseException {
+        final byte b = this.peek();
+        this.index++;
+
+        return b;
+    }
+
+    private boolean regionEquals(final int start, final int length, final byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (this.data.getByte(start + i) != expected[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
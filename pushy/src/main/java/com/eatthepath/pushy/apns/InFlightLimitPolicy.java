@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+/**
+ * An enumeration of policies that determine how an {@link ApnsClient} behaves when a caller attempts to send a
+ * notification while the client already has its maximum number of notifications in flight.
+ *
+ * @see ApnsClientBuilder#setInFlightNotificationLimit(int, InFlightLimitPolicy)
+ *
+ * @since 0.16
+ */
+public enum InFlightLimitPolicy {
+
+    /**
+     * Indicates that the future returned when sending a notification should fail immediately with an
+     * {@link InFlightLimitExceededException} if the client already has its maximum number of notifications in flight.
+     */
+    FAIL,
+
+    /**
+     * Indicates that the client should return a pending future immediately, but should hold the notification and try
+     * to send it later, once another notification is no longer in flight. Deferred notifications wait in a queue
+     * within the client and do not consume any connection resources until they are sent. The queue holds at most as
+     * many notifications as the client may have in flight; if the queue is full, the returned future fails immediately
+     * with an {@link InFlightLimitExceededException}.
+     */
+    DEFER,
+
+    /**
+     * Indicates that the calling thread should block until the notification can be sent without exceeding the
+     * client's in-flight notification limit. If the calling thread is interrupted while waiting, the returned future
+     * will fail with an {@link InterruptedException}.
+     *
+     * <p>Permits are returned on Netty event loop threads, so those threads never block under this policy; if a
+     * notification is sent from an event loop thread (for example, from a callback attached to another notification's
+     * future) while the client is at its limit, the notification is deferred as described for {@link #DEFER}
+     * instead.</p>
+     */
+    BLOCK
+}
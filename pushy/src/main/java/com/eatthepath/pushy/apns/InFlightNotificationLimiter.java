@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
+import io.netty.util.concurrent.FastThreadLocalThread;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>An in-flight notification limiter enforces an upper bound on the number of notifications an {@link ApnsClient}
+ * may have in flight at any given time. Notifications must acquire a permit from the limiter before they're written to
+ * a connection, and return the permit when their futures complete.</p>
+ *
+ * <p>Permits are tracked with a non-blocking counter; callers only wait (or are queued) when no permits are available,
+ * in which case the limiter's {@link InFlightLimitPolicy} determines what happens to the notification. At most as many
+ * notifications may be deferred as may be in flight; notifications beyond that bound fail immediately.</p>
+ *
+ * @since 0.16
+ */
+class InFlightNotificationLimiter {
+
+    private final Semaphore permits;
+    private final InFlightLimitPolicy policy;
+
+    private final Queue<DeferredNotification> deferredNotifications = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger deferredNotificationCount = new AtomicInteger(0);
+    private final int maxDeferredNotifications;
+
+    private static final InFlightLimitExceededException IN_FLIGHT_LIMIT_EXCEEDED_EXCEPTION =
+            new InFlightLimitExceededException();
+
+    private static class DeferredNotification {
+        private final PushNotificationFuture<?, ?> responseFuture;
+        private final Runnable sendAction;
+
+        private DeferredNotification(final PushNotificationFuture<?, ?> responseFuture, final Runnable sendAction) {
+            this.responseFuture = responseFuture;
+            this.sendAction = sendAction;
+        }
+    }
+
+    /**
+     * Constructs a new in-flight notification limiter.
+     *
+     * @param maxInFlightNotifications the maximum number of notifications that may be in flight at any given time
+     * @param policy the policy to apply to notifications sent when no permits are available
+     */
+    InFlightNotificationLimiter(final int maxInFlightNotifications, final InFlightLimitPolicy policy) {
+        if (maxInFlightNotifications < 1) {
+            throw new IllegalArgumentException("Maximum number of in-flight notifications must be positive.");
+        }
+
+        this.permits = new Semaphore(maxInFlightNotifications);
+        this.maxDeferredNotifications = maxInFlightNotifications;
+        this.policy = Objects.requireNonNull(policy, "In-flight limit policy must not be null.");
+    }
+
+    /**
+     * Attempts to acquire a permit for the given notification. If a permit is available (or becomes available while
+     * blocking under the {@link InFlightLimitPolicy#BLOCK} policy), this method returns {@code true} and the caller
+     * should send the notification immediately. Otherwise, the notification's future is failed or the notification is
+     * deferred according to this limiter's policy, and this method returns {@code false}; deferred notifications will
+     * be sent by calling the given {@code sendAction} when a permit becomes available. Callers on Netty event loop
+     * threads never block; under the {@link InFlightLimitPolicy#BLOCK} policy, their notifications are deferred
+     * instead.
+     *
+     * @param responseFuture the future for the notification to be sent
+     * @param sendAction an action that sends the notification; only called for deferred notifications
+     *
+     * @return {@code true} if a permit was acquired and the caller should send the notification immediately or
+     * {@code false} otherwise
+     */
+    boolean acquire(final PushNotificationFuture<?, ?> responseFuture, final Runnable sendAction) {
+        if (this.tryAcquire(responseFuture)) {
+            return true;
+        }
+
+        switch (this.policy) {
+            case FAIL: {
+                responseFuture.completeExceptionally(IN_FLIGHT_LIMIT_EXCEEDED_EXCEPTION);
+                return false;
+            }
+
+            case DEFER: {
+                this.defer(responseFuture, sendAction);
+                return false;
+            }
+
+            case BLOCK: {
+                // Permits are returned when response futures complete, which usually happens on an event loop thread.
+                // Blocking one of those threads while waiting for a permit may mean the permit never comes back.
+                if (Thread.currentThread() instanceof FastThreadLocalThread) {
+                    this.defer(responseFuture, sendAction);
+                    return false;
+                }
+
+                try {
+                    this.permits.acquire();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    responseFuture.completeExceptionally(e);
+
+                    return false;
+                }
+
+                this.releaseOnCompletion(responseFuture);
+                return true;
+            }
+
+            default: {
+                throw new IllegalArgumentException("Unexpected in-flight limit policy: " + this.policy);
+            }
+        }
+    }
+
+    /**
+     * Attempts to acquire a permit for the given notification without blocking and without applying this limiter's
+     * policy if no permits are available.
+     *
+     * @param responseFuture the future for the notification to be sent
+     *
+     * @return {@code true} if a permit was acquired and the caller should send the notification immediately or
+     * {@code false} if no permits were available
+     */
+    boolean tryAcquire(final PushNotificationFuture<?, ?> responseFuture) {
+        if (this.permits.tryAcquire()) {
+            this.releaseOnCompletion(responseFuture);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of permits currently available.
+     *
+     * @return the number of permits currently available
+     */
+    int getAvailablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    /**
+     * Fails all deferred notifications with the given cause. Notifications that have already acquired a permit are not
+     * affected.
+     *
+     * @param cause the cause with which to fail all deferred notifications
+     */
+    void failDeferredNotifications(final Throwable cause) {
+        for (DeferredNotification deferredNotification = this.deferredNotifications.poll();
+             deferredNotification != null;
+             deferredNotification = this.deferredNotifications.poll()) {
+
+            this.deferredNotificationCount.decrementAndGet();
+            deferredNotification.responseFuture.completeExceptionally(cause);
+        }
+    }
+
+    private void defer(final PushNotificationFuture<?, ?> responseFuture, final Runnable sendAction) {
+        int deferredNotificationCount;
+
+        do {
+            deferredNotificationCount = this.deferredNotificationCount.get();
+
+            if (deferredNotificationCount >= this.maxDeferredNotifications) {
+                responseFuture.completeExceptionally(IN_FLIGHT_LIMIT_EXCEEDED_EXCEPTION);
+                return;
+            }
+        } while (!this.deferredNotificationCount.compareAndSet(deferredNotificationCount, deferredNotificationCount + 1));
+
+        this.deferredNotifications.add(new DeferredNotification(responseFuture, sendAction));
+
+        // A permit may have been released between our failed attempt to acquire one and adding this notification to
+        // the queue
+        this.sendDeferredNotifications();
+    }
+
+    private void releaseOnCompletion(final PushNotificationFuture<?, ?> responseFuture) {
+        responseFuture.whenComplete((response, cause) -> {
+            this.permits.release();
+            this.sendDeferredNotifications();
+        });
+    }
+
+    private void sendDeferredNotifications() {
+        while (!this.deferredNotifications.isEmpty() && this.permits.tryAcquire()) {
+            final DeferredNotification deferredNotification = this.deferredNotifications.poll();
+
+            if (deferredNotification == null) {
+                // Somebody else claimed the last deferred notification; give back the permit we just took
+                this.permits.release();
+            } else if (deferredNotification.responseFuture.isDone()) {
+                // The caller gave up (e.g. by cancelling the future) while the notification was waiting
+                this.deferredNotificationCount.decrementAndGet();
+                this.permits.release();
+            } else {
+                this.deferredNotificationCount.decrementAndGet();
+
+                this.releaseOnCompletion(deferredNotification.responseFuture);
+                deferredNotification.sendAction.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>A push notification with a payload that has already been encoded as UTF-8 bytes. When a client sends a
+ * pre-encoded push notification, it writes the encoded payload to the network as-is (as a retained duplicate of the
+ * buffer returned by {@link #getEncodedPayload()}) rather than encoding the string returned by {@link #getPayload()}.
+ * Because the buffer's contents are never copied, a single encoded payload may be shared by any number of
+ * notifications (e.g. when broadcasting the same message to many devices).</p>
+ *
+ * @see com.eatthepath.pushy.apns.util.SimplePreEncodedApnsPushNotification
+ *
+ * @since 0.16
+ */
+public interface PreEncodedApnsPushNotification extends ApnsPushNotification {
+
+    /**
+     * <p>Returns a buffer containing the UTF-8-encoded JSON payload of this push notification. The readable bytes of
+     * the returned buffer are the complete payload.</p>
+     *
+     * <p>Clients retain their own reference to the returned buffer for as long as they need it, and never modify its
+     * contents, indices, or the reference held by the notification. Callers must not modify the buffer's contents or
+     * indices once the notification has been sent, and must not release the buffer until all notifications that share
+     * it have been sent.</p>
+     *
+     * @return a buffer containing the UTF-8-encoded JSON payload of this push notification
+     */
+    ByteBuf getEncodedPayload();
+}
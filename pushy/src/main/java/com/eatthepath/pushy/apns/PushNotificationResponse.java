@@ -99,6 +99,19 @@ public interface PushNotificationResponse<T extends ApnsPushNotification> {
      */
     Optional<String> getRejectionReason();
 
+    /**
+     * Returns the reason for rejection reported by the APNs gateway as a typed constant, which may be more convenient
+     * than {@link #getRejectionReason()} for callers that need to handle different rejection reasons differently.
+     *
+     * @return the reason for rejection reported by the APNs gateway, or empty if the notification was not rejected or
+     * if the gateway reported a rejection reason not known to this version of Pushy
+     *
+     * @since 0.16
+     */
+    default Optional<ApnsRejectionReason> getApnsRejectionReason() {
+        return this.getRejectionReason().map(ApnsRejectionReason::getFromReasonText);
+    }
+
     /**
      * If the sent push notification was rejected because the destination token is no longer valid, returns "the time at
      * which APNs confirmed the token was no longer valid for the topic." Callers should stop attempting
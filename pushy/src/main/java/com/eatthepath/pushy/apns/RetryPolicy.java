@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import io.netty.handler.codec.http2.Http2Exception;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>A retry policy determines whether and when an {@link ApnsClient} should automatically re-send a notification
+ * after a transient failure. Notifications are retried if they could not be written to or were lost with a connection
+ * (for example, because the connection was closed or the server sent a {@code GOAWAY} frame before replying), or if the
+ * server rejected them for a reason that indicates a temporary problem on the server's side:</p>
+ *
+ * <ul>
+ *     <li>{@link ApnsRejectionReason#TOO_MANY_REQUESTS}</li>
+ *     <li>{@link ApnsRejectionReason#INTERNAL_SERVER_ERROR}</li>
+ *     <li>{@link ApnsRejectionReason#SERVICE_UNAVAILABLE}</li>
+ *     <li>{@link ApnsRejectionReason#SHUTDOWN}</li>
+ * </ul>
+ *
+ * <p>Retry delays grow exponentially from an initial delay up to a maximum delay. Each delay is "jittered" by choosing
+ * a random value between half of the nominal delay and the full nominal delay so that notifications that failed
+ * together (because a connection closed, for example) don't all retry at the same moment.</p>
+ *
+ * @see ApnsClientBuilder#setRetryPolicy(int, Duration, Duration)
+ *
+ * @since 0.16
+ */
+class RetryPolicy {
+
+    private final int maxRetries;
+    private final long initialRetryDelayNanos;
+    private final long maxRetryDelayNanos;
+
+    /**
+     * Constructs a new retry policy.
+     *
+     * @param maxRetries the maximum number of times to retry any single notification; must be positive
+     * @param initialRetryDelay the nominal delay before the first retry; must be positive
+     * @param maxRetryDelay the maximum nominal delay before any retry; must not be less than the initial delay
+     */
+    RetryPolicy(final int maxRetries, final Duration initialRetryDelay, final Duration maxRetryDelay) {
+        Objects.requireNonNull(initialRetryDelay, "Initial retry delay must not be null.");
+        Objects.requireNonNull(maxRetryDelay, "Maximum retry delay must not be null.");
+
+        if (maxRetries < 1) {
+            throw new IllegalArgumentException("Maximum number of retries must be positive.");
+        }
+
+        if (initialRetryDelay.isNegative() || initialRetryDelay.isZero()) {
+            throw new IllegalArgumentException("Initial retry delay must be positive.");
+        }
+
+        if (maxRetryDelay.compareTo(initialRetryDelay) < 0) {
+            throw new IllegalArgumentException("Maximum retry delay must not be less than initial retry delay.");
+        }
+
+        this.maxRetries = maxRetries;
+        this.initialRetryDelayNanos = initialRetryDelay.toNanos();
+        this.maxRetryDelayNanos = maxRetryDelay.toNanos();
+    }
+
+    int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * Returns a jittered delay, in nanoseconds, before the given retry.
+     *
+     * @param retry the number of the retry (starting at 1) for which to choose a delay
+     *
+     * @return a jittered delay, in nanoseconds, before the given retry
+     */
+    long getRetryDelayNanos(final int retry) {
+        final long nominalDelayNanos = getNominalRetryDelayNanos(retry);
+
+        return (nominalDelayNanos / 2) + ThreadLocalRandom.current().nextLong((nominalDelayNanos - (nominalDelayNanos / 2)) + 1);
+    }
+
+    long getNominalRetryDelayNanos(final int retry) {
+        // Stop doubling before we can overflow; the maximum delay will have taken over long before this matters
+        final int doublings = Math.min(Math.max(retry - 1, 0), Long.numberOfLeadingZeros(this.initialRetryDelayNanos) - 1);
+
+        return Math.min(this.initialRetryDelayNanos << doublings, this.maxRetryDelayNanos);
+    }
+
+    /**
+     * Indicates whether a notification that received the given response from the server should be retried.
+     *
+     * @param response the response received from the server
+     *
+     * @return {@code true} if the notification was rejected for a transient reason or {@code false} otherwise
+     */
+    static boolean isRetryable(final PushNotificationResponse<?> response) {
+        if (response.isAccepted()) {
+            return false;
+        }
+
+        return response.getApnsRejectionReason()
+                .map(rejectionReason -> {
+                    switch (rejectionReason) {
+                        case TOO_MANY_REQUESTS:
+                        case INTERNAL_SERVER_ERROR:
+                        case SERVICE_UNAVAILABLE:
+                        case SHUTDOWN:
+                            return true;
+
+                        default:
+                            return false;
+                    }
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Indicates whether a notification that failed to send with the given cause should be retried.
+     *
+     * @param cause the reason the notification failed to send
+     *
+     * @return {@code true} if the failure was caused by a (presumably transient) I/O or HTTP/2 problem or {@code false}
+     * otherwise
+     */
+    static boolean isRetryable(final Throwable cause) {
+        final Throwable unwrappedCause = cause instanceof CompletionException && cause.getCause() != null ?
+                cause.getCause() : cause;
+
+        // TLS problems (like an untrusted certificate) generally won't go away on their own
+        if (unwrappedCause instanceof SSLException) {
+            return false;
+        }
+
+        return unwrappedCause instanceof IOException || unwrappedCause instanceof Http2Exception;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+/**
+ * An enumeration of strategies an {@link ApnsClientGroup} may use to choose the shard (client) that will send each
+ * notification.
+ *
+ * @see ApnsClientBuilder#buildClientGroup(int, ShardingStrategy)
+ *
+ * @since 0.16
+ */
+public enum ShardingStrategy {
+
+    /**
+     * Indicates that notifications should be assigned to shards by the hash of their destination device token.
+     * Notifications sent to the same device are always sent by the same shard, and so will be sent in the order in
+     * which they were submitted.
+     */
+    TOKEN_HASH,
+
+    /**
+     * Indicates that notifications should be assigned to shards in turn, regardless of their destination. Round-robin
+     * sharding spreads load evenly even if a small number of devices receive many notifications, but notifications
+     * sent to the same device may be sent by different shards and may not be sent in the order in which they were
+     * submitted.
+     */
+    ROUND_ROBIN
+}
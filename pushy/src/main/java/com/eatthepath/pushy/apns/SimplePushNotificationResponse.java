@@ -24,52 +24,35 @@ package com.eatthepath.pushy.apns;
 
 import java.time.Instant;
 import java.util.Optional;
-import java.util.UUID;
 
 /**
- * A trivial and immutable implementation of the {@link PushNotificationResponse} interface.
+ * A trivial and immutable implementation of the {@link PushNotificationResponse} interface. Response identifiers are
+ * kept in their raw form and decoded the first time they're requested.
  *
  * @author <a href="https://github.com/jchambers">Jon Chambers</a>
  */
-class SimplePushNotificationResponse<T extends ApnsPushNotification> implements PushNotificationResponse<T> {
-    private final T pushNotification;
+class SimplePushNotificationResponse<T extends ApnsPushNotification> extends BasePushNotificationResponse<T> {
     private final boolean success;
-    private final UUID apnsId;
-    private final UUID apnsUniqueId;
     private final int statusCode;
     private final String rejectionReason;
+    private final ApnsRejectionReason apnsRejectionReason;
     private final Instant tokenExpirationTimestamp;
 
-    SimplePushNotificationResponse(final T pushNotification, final boolean success, final UUID apnsId, final UUID apnsUniqueId, final int statusCode, final String rejectionReason, final Instant tokenExpirationTimestamp) {
-        this.pushNotification = pushNotification;
+    SimplePushNotificationResponse(final T pushNotification, final boolean success, final CharSequence apnsIdSequence, final CharSequence apnsUniqueIdSequence, final int statusCode, final String rejectionReason, final ApnsRejectionReason apnsRejectionReason, final Instant tokenExpirationTimestamp) {
+        super(pushNotification, apnsIdSequence, apnsUniqueIdSequence);
+
         this.success = success;
-        this.apnsId = apnsId;
-        this.apnsUniqueId = apnsUniqueId;
         this.statusCode = statusCode;
         this.rejectionReason = rejectionReason;
+        this.apnsRejectionReason = apnsRejectionReason;
         this.tokenExpirationTimestamp = tokenExpirationTimestamp;
     }
 
-    @Override
-    public T getPushNotification() {
-        return this.pushNotification;
-    }
-
     @Override
     public boolean isAccepted() {
         return this.success;
     }
 
-    @Override
-    public UUID getApnsId() {
-        return this.apnsId;
-    }
-
-    @Override
-    public Optional<UUID> getApnsUniqueId() {
-        return Optional.ofNullable(apnsUniqueId);
-    }
-
     @Override
     public int getStatusCode() {
         return this.statusCode;
@@ -80,6 +63,11 @@ class SimplePushNotificationResponse<T extends ApnsPushNotification> implements
         return Optional.ofNullable(this.rejectionReason);
     }
 
+    @Override
+    public Optional<ApnsRejectionReason> getApnsRejectionReason() {
+        return Optional.ofNullable(this.apnsRejectionReason);
+    }
+
     @Override
     public Optional<Instant> getTokenInvalidationTimestamp() {
         return Optional.ofNullable(this.tokenExpirationTimestamp);
@@ -88,9 +76,9 @@ class SimplePushNotificationResponse<T extends ApnsPushNotification> implements
     @Override
     public String toString() {
         return "SimplePushNotificationResponse{" +
-                "pushNotification=" + pushNotification +
+                "pushNotification=" + getPushNotification() +
                 ", success=" + success +
-                ", apnsId=" + apnsId +
+                ", apnsId=" + getApnsId() +
                 ", apnsUniqueId=" + getApnsUniqueId() +
                 ", rejectionReason='" + rejectionReason + '\'' +
                 ", tokenExpirationTimestamp=" + tokenExpirationTimestamp +
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+/**
+ * Utility methods for decoding UUIDs from HTTP/2 header values without first converting them to strings.
+ */
+class UUIDUtil {
+
+    // The canonical string representation of a UUID has the form xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx
+    private static final int CANONICAL_LENGTH = 36;
+
+    private static final Logger log = LoggerFactory.getLogger(UUIDUtil.class);
+
+    private UUIDUtil() {
+        // A private constructor prevents callers from accidentally constructing a UUIDUtil instance
+    }
+
+    /**
+     * Decodes a UUID from the given sequence of characters. This method decodes UUIDs in their canonical form directly
+     * from the given sequence (which, in the case of an {@link io.netty.util.AsciiString}, does not require copying
+     * any characters); sequences in any other form are parsed by {@link UUID#fromString(String)}.
+     *
+     * @param uuidSequence the sequence of characters to decode; must not be {@code null}
+     *
+     * @return the UUID represented by the given sequence of characters
+     *
+     * @throws IllegalArgumentException if the given sequence does not represent a UUID
+     */
+    static UUID fromCharSequence(final CharSequence uuidSequence) {
+        if (uuidSequence.length() != CANONICAL_LENGTH) {
+            return UUID.fromString(uuidSequence.toString());
+        }
+
+        if (uuidSequence.charAt(8) != '-' || uuidSequence.charAt(13) != '-' ||
+                uuidSequence.charAt(18) != '-' || uuidSequence.charAt(23) != '-') {
+
+            throw new IllegalArgumentException("Invalid UUID string: " + uuidSequence);
+        }
+
+        final long mostSignificantBits = (decodeHex(uuidSequence, 0, 8) << 32) |
+                (decodeHex(uuidSequence, 9, 13) << 16) |
+                decodeHex(uuidSequence, 14, 18);
+
+        final long leastSignificantBits = (decodeHex(uuidSequence, 19, 23) << 48) |
+                decodeHex(uuidSequence, 24, 36);
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Decodes a UUID from the value of the given header, logging (rather than throwing) any errors.
+     *
+     * @param headerValue the value of the header to decode; may be {@code null}
+     * @param headerName the name of the header to decode, for use in log messages
+     *
+     * @return the UUID represented by the given header value, or {@code null} if the header value was {@code null} or
+     * could not be decoded
+     */
+    static UUID fromHeaderValue(final CharSequence headerValue, final CharSequence headerName) {
+        try {
+            return headerValue != null ? fromCharSequence(headerValue) : null;
+        } catch (final IllegalArgumentException e) {
+            log.error("Failed to parse `{}` header: {}", headerName, headerValue, e);
+            return null;
+        }
+    }
+
+    private static long decodeHex(final CharSequence sequence, final int start, final int end) {
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+            final char c = sequence.charAt(i);
+            final int digit;
+
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                digit = c - 'A' + 10;
+            } else {
+                throw new IllegalArgumentException("Invalid UUID string: " + sequence);
+            }
+
+            value = (value << 4) | digit;
+        }
+
+        return value;
+    }
+}
@@ -22,11 +22,11 @@
 
 package com.eatthepath.pushy.apns.server;
 
+import com.eatthepath.pushy.apns.util.EventLoopGroupUtil;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
@@ -76,7 +76,7 @@ abstract class BaseHttp2Server {
             this.bootstrap.group(eventLoopGroup);
             this.shouldShutDownEventLoopGroup = false;
         } else {
-            this.bootstrap.group(new NioEventLoopGroup(1));
+            this.bootstrap.group(EventLoopGroupUtil.newEventLoopGroup(1));
             this.shouldShutDownEventLoopGroup = true;
         }
 
@@ -229,7 +229,8 @@ abstract class BaseHttp2ServerBuilder <T extends BaseHttp2Server> {
 
     /**
      * <p>Sets the event loop group to be used by the server under construction. If not set (or if {@code null}), the
-     * server will create and manage its own event loop group.</p>
+     * server will create and manage its own event loop group that uses the best transport available on the current
+     * platform.</p>
      *
      * @param eventLoopGroup the event loop group to use for this server, or {@code null} to let the server manage its
      * own event loop group
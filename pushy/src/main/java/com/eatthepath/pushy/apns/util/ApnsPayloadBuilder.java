@@ -23,7 +23,9 @@
 package com.eatthepath.pushy.apns.util;
 
 import com.eatthepath.json.JsonSerializer;
+import io.netty.buffer.ByteBuf;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Function;
@@ -32,6 +34,12 @@ import java.util.function.Function;
  * <p>A base utility class for constructing JSON payloads suitable for inclusion in APNs push notifications. Payload
  * builders are reusable, but are <em>not</em> thread-safe.</p>
  *
+ * <p>Callers that build many payloads may reuse a single builder by calling {@link #reset()} between payloads. A reset
+ * builder keeps the maps and buffers it uses internally, so building payloads with a reused builder (via
+ * {@link #build()} or {@link #build(io.netty.buffer.ByteBuf)}) allocates very little beyond the payload itself.
+ * Callers that build payloads on many threads may use {@link #getThreadLocalInstance()} to get a reset builder
+ * belonging to the current thread.</p>
+ *
  * <p>{@code ApnsPayloadBuilder} will, by default, use a {@link JsonSerializer} to serialize payloads. Callers may
  * provide their own serialization functions (see {@link #build(Function)}) in order to serialize payloads with
  * third-party JSON libraries.</p>
@@ -66,6 +74,7 @@ public class ApnsPayloadBuilder {
 
     private String soundFileName = null;
     private Map<String, Object> soundForCriticalAlert = null;
+    private final HashMap<String, Object> soundForCriticalAlertMap = new HashMap<>(3, 1);
 
     private String categoryName = null;
 
@@ -101,6 +110,22 @@ public class ApnsPayloadBuilder {
 
     private Map<String, Object> contentState = null;
 
+    // Scratch space retained between calls to build() so reused builders don't need to allocate new maps and buffers
+    // for each payload
+    private final HashMap<String, Object> scratchPayloadMap = new HashMap<>();
+    private final HashMap<String, Object> scratchApsMap = new HashMap<>();
+    private final HashMap<String, Object> scratchAlertMap = new HashMap<>();
+    private StringBuilder scratchStringBuilder = new StringBuilder(INITIAL_SCRATCH_STRING_BUILDER_CAPACITY);
+
+    private static final int INITIAL_SCRATCH_STRING_BUILDER_CAPACITY = 512;
+
+    // APNs payloads are limited to 4 KB (or 5 KB for VoIP notifications); don't hang on to buffers that have grown much
+    // larger than that
+    private static final int MAX_RETAINED_SCRATCH_STRING_BUILDER_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<ApnsPayloadBuilder> THREAD_LOCAL_BUILDER =
+            ThreadLocal.withInitial(ApnsPayloadBuilder::new);
+
     private static final String APS_KEY = "aps";
     private static final String ALERT_KEY = "alert";
     private static final String BADGE_KEY = "badge";
@@ -149,6 +174,108 @@ public class ApnsPayloadBuilder {
     public static final String DEFAULT_SOUND_FILENAME = "default";
 
     /**
+     * The maximum size, in bytes, of a UTF-8-encoded payload that the APNs server will accept for most push notification
+     * types.
+     *
+     * @see #getPayloadSize()
+     * @see #truncateAlertBodyToFit(int)
+     *
+     * @since 0.16
+     */
+    public static final int DEFAULT_MAXIMUM_PAYLOAD_SIZE = 4096;
+
+    /**
+     * The maximum size, in bytes, of a UTF-8-encoded payload that the APNs server will accept for VoIP push
+     * notifications.
+     *
+     * @see #getPayloadSize()
+     * @see #truncateAlertBodyToFit(int)
+     *
+     * @since 0.16
+     */
+    public static final int VOIP_MAXIMUM_PAYLOAD_SIZE = 5120;
+
+    /**
+     * Returns a payload builder belonging to the current thread. The returned builder is {@link #reset()} before it's
+     * returned, and callers must finish building a payload before calling this method again on the same thread. Callers
+     * must not share the returned builder with other threads.
+     *
+     * @return a reset payload builder belonging to the current thread
+     *
+     * @since 0.16
+     */
+    public static ApnsPayloadBuilder getThreadLocalInstance() {
+        return THREAD_LOCAL_BUILDER.get().reset();
+    }
+
+    /**
+     * Resets this payload builder to its initial state, as if it had just been constructed, so it can be used to build
+     * a new payload. Internal maps and buffers are cleared, but retained for use when building the next payload.
+     *
+     * @return a reference to this payload builder
+     *
+     * @since 0.16
+     */
+    public ApnsPayloadBuilder reset() {
+        this.alertBody = null;
+
+        this.localizedAlertKey = null;
+        this.localizedAlertArguments = null;
+        this.alertTitle = null;
+        this.localizedAlertTitleKey = null;
+        this.localizedAlertTitleArguments = null;
+        this.alertSubtitle = null;
+        this.localizedAlertSubtitleKey = null;
+        this.localizedAlertSubtitleArguments = null;
+
+        this.launchImageFileName = null;
+
+        this.showActionButton = true;
+        this.actionButtonLabel = null;
+        this.localizedActionButtonKey = null;
+
+        this.badgeNumber = null;
+
+        this.soundFileName = null;
+        this.soundForCriticalAlert = null;
+
+        this.categoryName = null;
+
+        this.contentAvailable = false;
+        this.mutableContent = false;
+
+        this.threadId = null;
+        this.targetContentId = null;
+
+        this.summaryArgument = null;
+        this.summaryArgumentCount = null;
+
+        this.interruptionLevel = null;
+
+        this.relevanceScore = null;
+
+        this.urlArguments = null;
+
+        this.customProperties.clear();
+
+        this.preferStringRepresentationForAlerts = false;
+
+        this.event = null;
+
+        this.timestamp = null;
+
+        this.dismissalDate = null;
+
+        this.staleDate = null;
+
+        this.attributesType = null;
+        this.attributes = null;
+
+        this.contentState = null;
+
+        return this;
+    }
+
     /**
      * Sets whether this payload builder will attempt to represent alerts as strings when possible. Older versions of
      * the APNs specification recommended representing alerts as strings when only a literal alert body was provided,
@@ -465,19 +592,14 @@ public class ApnsPayloadBuilder {
         }
 
         this.soundFileName = null;
-        this.soundForCriticalAlert = buildSoundForCriticalAlertMap(soundFileName, isCriticalAlert, soundVolume);
 
-        return this;
-    }
+        this.soundForCriticalAlertMap.put("name", soundFileName);
+        this.soundForCriticalAlertMap.put("critical", isCriticalAlert ? 1 : 0);
+        this.soundForCriticalAlertMap.put("volume", soundVolume);
 
-    private static Map<String, Object> buildSoundForCriticalAlertMap(final String name, final boolean critical, final double volume) {
-        final Map<String, Object> soundForCriticalAlertMap = new HashMap<>(3, 1);
+        this.soundForCriticalAlert = this.soundForCriticalAlertMap;
 
-        soundForCriticalAlertMap.put("name", name);
-        soundForCriticalAlertMap.put("critical", critical ? 1 : 0);
-        soundForCriticalAlertMap.put("volume", volume);
-
-        return soundForCriticalAlertMap;
+        return this;
     }
 
     /**
@@ -894,12 +1016,36 @@ public class ApnsPayloadBuilder {
      * @since 0.14.0
      */
     private Map<String, Object> buildPayloadMap() {
-        final boolean isLiveActivityPayload = event != null;
+        final Map<String, Object> aps = new HashMap<>();
+        final Map<String, Object> payload = buildPayloadMap(new HashMap<>(), aps, new HashMap<>());
+
+        // The critical alert sound map is reused from payload to payload, so callers need their own copy
+        if (aps.get(SOUND_KEY) == this.soundForCriticalAlertMap) {
+            aps.put(SOUND_KEY, new HashMap<>(this.soundForCriticalAlertMap));
+        }
+
+        return payload;
+    }
+
+    /**
+     * Returns a map representing the push notification payload under construction, reusing this builder's scratch
+     * maps. The returned map (and the maps nested within it) are only valid until the next call to this method, and
+     * must never be exposed to callers.
+     *
+     * @return a map representing the push notification payload under construction
+     */
+    private Map<String, Object> buildPayloadMapWithScratchMaps() {
+        this.scratchPayloadMap.clear();
+        this.scratchApsMap.clear();
+        this.scratchAlertMap.clear();
+
+        return buildPayloadMap(this.scratchPayloadMap, this.scratchApsMap, this.scratchAlertMap);
+    }
 
-        final Map<String, Object> payload = new HashMap<>();
+    private Map<String, Object> buildPayloadMap(final Map<String, Object> payload, final Map<String, Object> aps, final Map<String, Object> alert) {
+        final boolean isLiveActivityPayload = event != null;
 
         {
-            final Map<String, Object> aps = new HashMap<>();
 
             if (this.badgeNumber != null) {
                 aps.put(BADGE_KEY, this.badgeNumber);
@@ -971,7 +1117,6 @@ public class ApnsPayloadBuilder {
                 aps.put(STALE_DATE_KEY, this.staleDate.getEpochSecond());
             }
 
-            final Map<String, Object> alert = new HashMap<>();
             {
                 if (this.alertBody != null) {
                     alert.put(ALERT_BODY_KEY, this.alertBody);
@@ -1065,12 +1210,28 @@ public class ApnsPayloadBuilder {
      * @since 0.14.0
      */
     public String build() {
-        return build(JsonSerializer::writeJsonTextAsString);
+        final StringBuilder stringBuilder = this.scratchStringBuilder;
+        stringBuilder.setLength(0);
+
+        try {
+            JsonSerializer.writeJsonText(this.buildPayloadMapWithScratchMaps(), stringBuilder);
+        } catch (final IOException e) {
+            // This should never happen for a StringBuilder
+            throw new RuntimeException(e);
+        }
+
+        if (stringBuilder.capacity() > MAX_RETAINED_SCRATCH_STRING_BUILDER_CAPACITY) {
+            this.scratchStringBuilder = new StringBuilder(INITIAL_SCRATCH_STRING_BUILDER_CAPACITY);
+        }
+
+        return stringBuilder.toString();
     }
 
     /**
      * Returns a JSON representation of the push notification payload under construction using the serialization method
-     * of the caller's choice. Callers may use this method to serialize payloads with third-party JSON libraries.
+     * of the caller's choice. Callers may use this method to serialize payloads with third-party JSON libraries. The
+     * map passed to the given function may share nested maps with this builder, and must not be retained after this
+     * builder is modified or reset.
      *
      * @return a JSON representation of the payload under construction
      *
@@ -1080,6 +1241,159 @@ public class ApnsPayloadBuilder {
         return buildPayloadFunction.apply(this.buildPayloadMap());
     }
 
+    /**
+     * Writes a UTF-8-encoded JSON representation of the push notification payload under construction to the given
+     * buffer, starting at the buffer's current writer index. This method serializes payloads using a
+     * {@link JsonSerializer}, and avoids building an intermediate {@code String}; the written bytes may be sent as-is
+     * with a {@link SimplePreEncodedApnsPushNotification}.
+     *
+     * @param out the buffer to which to write the encoded payload
+     *
+     * @return the number of bytes written to the given buffer
+     *
+     * @see JsonSerializer#writeJsonText(Map, ByteBuf)
+     *
+     * @since 0.16
+     */
+    public int build(final ByteBuf out) {
+        return JsonSerializer.writeJsonText(this.buildPayloadMapWithScratchMaps(), out);
+    }
+
+    /**
+     * Returns the size, in bytes, of the UTF-8-encoded payload that would be produced by {@link #build()}. The size is
+     * calculated as the payload is serialized, but the serialized payload is never actually assembled. Callers may use
+     * this method to detect oversized payloads before sending them to the APNs server, which would reject them.
+     *
+     * @return the size, in bytes, of the UTF-8-encoded payload under construction
+     *
+     * @see #DEFAULT_MAXIMUM_PAYLOAD_SIZE
+     * @see #VOIP_MAXIMUM_PAYLOAD_SIZE
+     *
+     * @since 0.16
+     */
+    public int getPayloadSize() {
+        return JsonSerializer.getUtf8EncodedLength(this.buildPayloadMapWithScratchMaps());
+    }
+
+    /**
+     * Shortens the alert body (see {@link #setAlertBody(String)}), if necessary, so the UTF-8-encoded payload under
+     * construction is no larger than the given maximum size. The alert body is always shortened at a code point
+     * boundary, and is left unchanged if the payload already fits within the given size.
+     *
+     * @param maximumPayloadSize the maximum size, in bytes, of the UTF-8-encoded payload
+     *
+     * @return a reference to this payload builder
+     *
+     * @throws IllegalStateException if the payload would be larger than the given maximum size even if the alert body
+     * were empty
+     *
+     * @see #DEFAULT_MAXIMUM_PAYLOAD_SIZE
+     * @see #VOIP_MAXIMUM_PAYLOAD_SIZE
+     *
+     * @since 0.16
+     */
+    public ApnsPayloadBuilder truncateAlertBodyToFit(final int maximumPayloadSize) {
+        return truncateAlertBodyToFit(maximumPayloadSize, "");
+    }
+
+    /**
+     * Shortens the alert body (see {@link #setAlertBody(String)}), if necessary, so the UTF-8-encoded payload under
+     * construction is no larger than the given maximum size. If the alert body is shortened, the given suffix (an
+     * ellipsis, for example) is appended to the shortened alert body. The alert body is always shortened at a code
+     * point boundary, and is left unchanged if the payload already fits within the given size.
+     *
+     * @param maximumPayloadSize the maximum size, in bytes, of the UTF-8-encoded payload
+     * @param truncationSuffix a suffix to append to the alert body if it is shortened; must not be {@code null}, but
+     * may be empty
+     *
+     * @return a reference to this payload builder
+     *
+     * @throws IllegalStateException if the payload would be larger than the given maximum size even if the alert body
+     * consisted only of the given suffix
+     *
+     * @see #DEFAULT_MAXIMUM_PAYLOAD_SIZE
+     * @see #VOIP_MAXIMUM_PAYLOAD_SIZE
+     *
+     * @since 0.16
+     */
+    public ApnsPayloadBuilder truncateAlertBodyToFit(final int maximumPayloadSize, final String truncationSuffix) {
+        Objects.requireNonNull(truncationSuffix, "Truncation suffix must not be null.");
+
+        if (this.alertBody == null || this.getPayloadSize() <= maximumPayloadSize) {
+            return this;
+        }
+
+        final String originalAlertBody = this.alertBody;
+
+        // Every byte of the encoded payload other than the (escaped) alert body and suffix is the same regardless of
+        // the content of the alert body, so we only need to measure the rest of the payload once.
+        this.alertBody = truncationSuffix;
+        final int availableBytes = maximumPayloadSize - this.getPayloadSize();
+
+        if (availableBytes < 0) {
+            this.alertBody = originalAlertBody;
+            throw new IllegalStateException("Payload would exceed " + maximumPayloadSize + " bytes even without an alert body.");
+        }
+
+        int usedBytes = 0;
+        int end = 0;
+
+        while (end < originalAlertBody.length()) {
+            final int codePoint = originalAlertBody.codePointAt(end);
+            final int charCount = Character.charCount(codePoint);
+
+            final int escapedLength = charCount == 1 ? JsonSerializer.getEscapedCharacterLength((char) codePoint) : 0;
+            final int encodedLength = escapedLength > 0 ? escapedLength : getUtf8Length(codePoint);
+
+            if (usedBytes + encodedLength > availableBytes) {
+                break;
+            }
+
+            usedBytes += encodedLength;
+            end += charCount;
+        }
+
+        this.alertBody = originalAlertBody.substring(0, end) + truncationSuffix;
+
+        return this;
+    }
+
+    private static int getUtf8Length(final int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            // Unpaired surrogates are encoded as a single '?'
+            return Character.isSurrogate((char) codePoint) ? 1 : 3;
+        } else {
+            return 4;
+        }
+    }
+
+    /**
+     * Compiles the push notification payload under construction into a reusable template with the given variables.
+     * Variables may appear in any string value in the payload as placeholders (see
+     * {@link PayloadTemplate#placeholder(String)}), and their values are provided when the template is rendered.
+     * Callers that send many payloads that differ only by a few strings may find that rendering a template is much
+     * less expensive than building a new payload for each notification.
+     *
+     * @param variableNames the names of the variables in the payload under construction, in the order in which their
+     * values will be provided when rendering the template
+     *
+     * @return a template for the payload under construction
+     *
+     * @throws IllegalArgumentException if any variable name is not a legal variable name, is repeated, or does not
+     * appear in the payload under construction
+     *
+     * @see PayloadTemplate#render(String...)
+     *
+     * @since 0.16
+     */
+    public PayloadTemplate buildTemplate(final String... variableNames) {
+        return new PayloadTemplate(this.build(), variableNames);
+    }
+
     /**
      * Returns a map representing a
      * <a href="https://developer.apple.com/library/content/documentation/Miscellaneous/Reference/MobileDeviceManagementProtocolRef/1-Introduction/Introduction.html#//apple_ref/doc/uid/TP40017387-CH1-SW1">Mobile
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.AsciiString;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>An immutable representation of an APNs device token. Device tokens are stored in binary form, and each device
+ * token prepares the request path used to send notifications to its device when it's constructed. Callers that send
+ * notifications to the same devices repeatedly (for example, across several campaigns) may wish to construct device
+ * tokens once and reuse them to avoid repeatedly parsing token strings and building request paths.</p>
+ *
+ * <p>Device tokens are safe for use by multiple threads.</p>
+ *
+ * @see SimpleApnsPushNotification#forDeviceToken(DeviceToken, String, String)
+ *
+ * @since 0.16
+ */
+public final class DeviceToken {
+
+    private final byte[] tokenBytes;
+    private final String tokenString;
+    private final AsciiString path;
+    private final int hashCode;
+
+    private static final String APNS_PATH_PREFIX = "/3/device/";
+
+    private DeviceToken(final byte[] tokenBytes) {
+        this.tokenBytes = tokenBytes;
+        this.tokenString = ByteBufUtil.hexDump(tokenBytes);
+        this.path = AsciiString.of(APNS_PATH_PREFIX + this.tokenString);
+        this.hashCode = Arrays.hashCode(tokenBytes);
+    }
+
+    /**
+     * Constructs a device token from the given array of bytes.
+     *
+     * @param tokenBytes the bytes of the device token; must not be {@code null} or empty
+     *
+     * @return a device token containing the given bytes
+     *
+     * @throws IllegalArgumentException if the given array of bytes is empty
+     */
+    public static DeviceToken fromBytes(final byte[] tokenBytes) {
+        Objects.requireNonNull(tokenBytes, "Token bytes must not be null.");
+
+        if (tokenBytes.length == 0) {
+            throw new IllegalArgumentException("Device tokens must not be empty.");
+        }
+
+        return new DeviceToken(tokenBytes.clone());
+    }
+
+    /**
+     * Constructs a device token from the given string of hexadecimal digits. Upper- and lower-case digits are both
+     * accepted, but the string must not contain any other characters; callers working with token strings that may
+     * contain spaces or angle brackets should sanitize them with {@link TokenUtil#sanitizeTokenString(String)} first.
+     *
+     * @param tokenString the hexadecimal representation of the device token; must not be {@code null}
+     *
+     * @return a device token represented by the given string
+     *
+     * @throws IllegalArgumentException if the given string is empty, has an odd number of characters, or contains any
+     * characters other than hexadecimal digits
+     */
+    public static DeviceToken fromHexString(final CharSequence tokenString) {
+        Objects.requireNonNull(tokenString, "Token string must not be null.");
+
+        if (tokenString.length() == 0 || tokenString.length() % 2 != 0) {
+            throw new IllegalArgumentException("Token strings must contain a positive, even number of hexadecimal digits.");
+        }
+
+        final byte[] tokenBytes = new byte[tokenString.length() / 2];
+
+        for (int i = 0; i < tokenBytes.length; i++) {
+            final int high = TokenUtil.decodeHexDigit(tokenString.charAt(i * 2));
+            final int low = TokenUtil.decodeHexDigit(tokenString.charAt((i * 2) + 1));
+
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Token strings must contain only hexadecimal digits.");
+            }
+
+            tokenBytes[i] = (byte) ((high << 4) | low);
+        }
+
+        return new DeviceToken(tokenBytes);
+    }
+
+    /**
+     * Returns a copy of the bytes of this device token.
+     *
+     * @return a copy of the bytes of this device token
+     */
+    public byte[] getBytes() {
+        return this.tokenBytes.clone();
+    }
+
+    /**
+     * Returns the APNs request path for notifications sent to this device token (i.e. {@code /3/device/<token>}).
+     *
+     * @return the APNs request path for notifications sent to this device token
+     */
+    public AsciiString getPath() {
+        return this.path;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final DeviceToken that = (DeviceToken) o;
+
+        return hashCode == that.hashCode && Arrays.equals(tokenBytes, that.tokenBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    /**
+     * Returns a lower-case, hexadecimal representation of this device token.
+     *
+     * @return a lower-case, hexadecimal representation of this device token
+     */
+    @Override
+    public String toString() {
+        return this.tokenString;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * <p>A utility class for constructing event loop groups that use the best transport available on the current platform.
+ * In order of preference, event loop groups constructed by this class use:</p>
+ *
+ * <ol>
+ *     <li>{@code io_uring} (Linux; requires {@code netty-incubator-transport-native-io_uring})</li>
+ *     <li>{@code epoll} (Linux; requires {@code netty-transport-native-epoll})</li>
+ *     <li>{@code kqueue} (macOS/BSD; requires {@code netty-transport-native-kqueue})</li>
+ *     <li>NIO (all platforms)</li>
+ * </ol>
+ *
+ * <p>Native transports are detected at runtime, and are only used if their libraries are present and report that
+ * they're available on the current system. Event loop groups constructed by this class may be used for
+ * {@link com.eatthepath.pushy.apns.ApnsClientResources} and mock servers.</p>
+ *
+ * @since 0.16
+ */
+public class EventLoopGroupUtil {
+
+    private static final String[][] NATIVE_TRANSPORT_CLASS_NAMES = new String[][] {
+            { "io.netty.incubator.channel.uring.IOUring", "io.netty.incubator.channel.uring.IOUringEventLoopGroup" },
+            { "io.netty.channel.epoll.Epoll", "io.netty.channel.epoll.EpollEventLoopGroup" },
+            { "io.netty.channel.kqueue.KQueue", "io.netty.channel.kqueue.KQueueEventLoopGroup" },
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoopGroupUtil.class);
+
+    private EventLoopGroupUtil() {
+        // A private constructor prevents callers from accidentally constructing an EventLoopGroupUtil instance
+    }
+
+    // Lazily finds the best available native transport the first time it's needed
+    private static class NativeEventLoopGroupConstructorHolder {
+        private static final Constructor<? extends EventLoopGroup> CONSTRUCTOR = findNativeEventLoopGroupConstructor();
+    }
+
+    /**
+     * Constructs a new event loop group with the given number of threads that uses the best transport available on the
+     * current platform.
+     *
+     * @param threadCount the number of threads in the new event loop group
+     *
+     * @return a new event loop group that uses the best available transport
+     */
+    public static EventLoopGroup newEventLoopGroup(final int threadCount) {
+        final Constructor<? extends EventLoopGroup> constructor = NativeEventLoopGroupConstructorHolder.CONSTRUCTOR;
+
+        if (constructor != null) {
+            try {
+                return constructor.newInstance(threadCount);
+            } catch (final ReflectiveOperationException | LinkageError e) {
+                log.warn("Failed to construct native event loop group; will use NIO instead.", e);
+            }
+        }
+
+        return new NioEventLoopGroup(threadCount);
+    }
+
+    private static Constructor<? extends EventLoopGroup> findNativeEventLoopGroupConstructor() {
+        for (final String[] classNames : NATIVE_TRANSPORT_CLASS_NAMES) {
+            try {
+                final Class<?> availabilityClass = Class.forName(classNames[0]);
+
+                if ((Boolean) availabilityClass.getMethod("isAvailable").invoke(null)) {
+                    log.debug("Native transport {} is available.", classNames[1]);
+
+                    return Class.forName(classNames[1]).asSubclass(EventLoopGroup.class).getConstructor(int.class);
+                }
+            } catch (final ClassNotFoundException e) {
+                // This transport just isn't present, which is the normal case; move on to the next one
+            } catch (final ReflectiveOperationException | LinkageError | ClassCastException e) {
+                log.debug("Could not check availability of native transport {}.", classNames[1], e);
+            }
+        }
+
+        log.debug("No native transports available; will use NIO.");
+        return null;
+    }
+}
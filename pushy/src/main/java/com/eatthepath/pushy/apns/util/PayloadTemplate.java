@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import com.eatthepath.json.JsonSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>A pre-compiled push notification payload with named variables. Payload templates are useful for callers that send
+ * many payloads that differ only by a few substituted strings (a recipient's name, for example). A template is
+ * serialized once when it's compiled, and rendering a template stitches precomputed UTF-8 fragments together with
+ * escaped variable values instead of building and serializing a new payload for every notification.</p>
+ *
+ * <p>Templates are compiled from an {@link ApnsPayloadBuilder}; variables may appear anywhere in the builder's string
+ * values (including custom property values) as placeholders of the form {@code ${name}}:</p>
+ *
+ * <pre>final PayloadTemplate template = new ApnsPayloadBuilder()
+ *         .setAlertTitle("Hello, " + PayloadTemplate.placeholder("name") + "!")
+ *         .setAlertBody(PayloadTemplate.placeholder("message"))
+ *         .buildTemplate("name", "message");
+ *
+ * final byte[] payload = template.render("Alice", "Your order has shipped.");</pre>
+ *
+ * <p>Rendered payloads may be sent without further encoding with a {@link SimplePreEncodedApnsPushNotification}.</p>
+ *
+ * <p>Payload templates are immutable and safe for use by multiple threads.</p>
+ *
+ * @see ApnsPayloadBuilder#buildTemplate(String...)
+ *
+ * @since 0.16
+ */
+public class PayloadTemplate {
+
+    private final byte[][] fragments;
+    private final int[] variableIndices;
+    private final int variableCount;
+    private final int fragmentLength;
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+    private static final String PLACEHOLDER_SUFFIX = "}";
+
+    /**
+     * Compiles a template from the given serialized payload.
+     *
+     * @param payload the serialized payload, including placeholders for each of the given variables
+     * @param variableNames the names of the variables in the given payload, in the order in which their values will be
+     * provided when rendering the template
+     *
+     * @throws IllegalArgumentException if any variable name is not a legal variable name, is repeated, or does not
+     * appear in the given payload
+     */
+    PayloadTemplate(final String payload, final String... variableNames) {
+        Objects.requireNonNull(payload, "Payload must not be null.");
+        Objects.requireNonNull(variableNames, "Variable names must not be null.");
+
+        final Map<String, Integer> indicesByName = new HashMap<>(variableNames.length);
+
+        for (int i = 0; i < variableNames.length; i++) {
+            if (!isLegalVariableName(variableNames[i])) {
+                throw new IllegalArgumentException("Illegal variable name: " + variableNames[i]);
+            }
+
+            if (indicesByName.put(variableNames[i], i) != null) {
+                throw new IllegalArgumentException("Variable names must not be repeated: " + variableNames[i]);
+            }
+        }
+
+        final List<byte[]> fragments = new ArrayList<>();
+        final List<Integer> variableIndices = new ArrayList<>();
+        final boolean[] variablesFound = new boolean[variableNames.length];
+
+        int fragmentStart = 0;
+        int placeholderStart = payload.indexOf(PLACEHOLDER_PREFIX);
+
+        while (placeholderStart >= 0) {
+            final int placeholderEnd = payload.indexOf(PLACEHOLDER_SUFFIX, placeholderStart + PLACEHOLDER_PREFIX.length());
+
+            if (placeholderEnd < 0) {
+                break;
+            }
+
+            final Integer variableIndex =
+                    indicesByName.get(payload.substring(placeholderStart + PLACEHOLDER_PREFIX.length(), placeholderEnd));
+
+            if (variableIndex != null) {
+                fragments.add(payload.substring(fragmentStart, placeholderStart).getBytes(StandardCharsets.UTF_8));
+                variableIndices.add(variableIndex);
+                variablesFound[variableIndex] = true;
+
+                fragmentStart = placeholderEnd + PLACEHOLDER_SUFFIX.length();
+                placeholderStart = payload.indexOf(PLACEHOLDER_PREFIX, fragmentStart);
+            } else {
+                // Not one of our variables; leave it in place as literal text
+                placeholderStart = payload.indexOf(PLACEHOLDER_PREFIX, placeholderStart + 1);
+            }
+        }
+
+        fragments.add(payload.substring(fragmentStart).getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i < variablesFound.length; i++) {
+            if (!variablesFound[i]) {
+                throw new IllegalArgumentException("Variable does not appear in payload: " + variableNames[i]);
+            }
+        }
+
+        this.fragments = fragments.toArray(new byte[0][]);
+        this.variableIndices = variableIndices.stream().mapToInt(Integer::intValue).toArray();
+        this.variableCount = variableNames.length;
+
+        int fragmentLength = 0;
+
+        for (final byte[] fragment : this.fragments) {
+            fragmentLength += fragment.length;
+        }
+
+        this.fragmentLength = fragmentLength;
+    }
+
+    /**
+     * Returns a placeholder for the variable with the given name. Placeholders may be included in any string value
+     * passed to an {@link ApnsPayloadBuilder}, and will be replaced with the variable's value when a template compiled
+     * from that builder is rendered.
+     *
+     * @param variableName the name of the variable; must contain only letters, digits, underscores, hyphens, and
+     * periods
+     *
+     * @return a placeholder for the variable with the given name
+     *
+     * @throws IllegalArgumentException if the given variable name is not a legal variable name
+     */
+    public static String placeholder(final String variableName) {
+        if (!isLegalVariableName(variableName)) {
+            throw new IllegalArgumentException("Illegal variable name: " + variableName);
+        }
+
+        return PLACEHOLDER_PREFIX + variableName + PLACEHOLDER_SUFFIX;
+    }
+
+    private static boolean isLegalVariableName(final String variableName) {
+        if (variableName == null || variableName.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < variableName.length(); i++) {
+            final char c = variableName.charAt(i);
+
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '_' || c == '-' || c == '.')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of variables in this template.
+     *
+     * @return the number of variables in this template
+     */
+    public int getVariableCount() {
+        return this.variableCount;
+    }
+
+    /**
+     * Returns the length, in bytes, of the UTF-8-encoded payload that would be produced by rendering this template with
+     * the given variable values.
+     *
+     * @param values the values of this template's variables, in the order in which the variables were declared
+     *
+     * @return the length, in bytes, of the rendered payload
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of variables in this template
+     */
+    public int getRenderedLength(final String... values) {
+        checkValues(values);
+
+        int length = this.fragmentLength;
+
+        for (final int variableIndex : this.variableIndices) {
+            length += getEscapedLength(values[variableIndex]);
+        }
+
+        return length;
+    }
+
+    /**
+     * Renders this template with the given variable values as an array of UTF-8-encoded bytes. Values are escaped as
+     * needed, and must not include surrounding quotation marks.
+     *
+     * @param values the values of this template's variables, in the order in which the variables were declared; must
+     * not be {@code null}
+     *
+     * @return the rendered payload as an array of UTF-8-encoded bytes
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of variables in this template
+     */
+    public byte[] render(final String... values) {
+        final byte[] payload = new byte[getRenderedLength(values)];
+        writeRenderedPayload(Unpooled.wrappedBuffer(payload).clear(), values);
+
+        return payload;
+    }
+
+    /**
+     * Renders this template with the given variable values, writing the UTF-8-encoded payload to the given buffer.
+     * Values are escaped as needed, and must not include surrounding quotation marks.
+     *
+     * @param out the buffer to which to write the rendered payload
+     * @param values the values of this template's variables, in the order in which the variables were declared; must
+     * not be {@code null}
+     *
+     * @return the number of bytes written to the given buffer
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of variables in this template
+     */
+    public int render(final ByteBuf out, final String... values) {
+        final int length = getRenderedLength(values);
+
+        out.ensureWritable(length);
+        writeRenderedPayload(out, values);
+
+        return length;
+    }
+
+    private void checkValues(final String... values) {
+        Objects.requireNonNull(values, "Values must not be null.");
+
+        if (values.length != this.variableCount) {
+            throw new IllegalArgumentException("Expected " + this.variableCount + " values, but got " + values.length);
+        }
+
+        for (final String value : values) {
+            Objects.requireNonNull(value, "Values must not be null.");
+        }
+    }
+
+    private void writeRenderedPayload(final ByteBuf out, final String... values) {
+        for (int i = 0; i < this.variableIndices.length; i++) {
+            out.writeBytes(this.fragments[i]);
+            writeEscapedValue(values[this.variableIndices[i]], out);
+        }
+
+        out.writeBytes(this.fragments[this.fragments.length - 1]);
+    }
+
+    private static int getEscapedLength(final String value) {
+        int length = 0;
+        int start = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            final int escapedLength = JsonSerializer.getEscapedCharacterLength(value.charAt(i));
+
+            if (escapedLength > 0) {
+                length += ByteBufUtil.utf8Bytes(value, start, i) + escapedLength;
+                start = i + 1;
+            }
+        }
+
+        return length + ByteBufUtil.utf8Bytes(value, start, value.length());
+    }
+
+    private static void writeEscapedValue(final String value, final ByteBuf out) {
+        int start = 0;
+
+        // As in JsonSerializer, write runs of characters that don't need to be escaped all at once
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (JsonSerializer.getEscapedCharacterLength(c) > 0) {
+                writeUtf8(value, start, i, out);
+                writeEscapedCharacter(c, out);
+
+                start = i + 1;
+            }
+        }
+
+        writeUtf8(value, start, value.length(), out);
+    }
+
+    /**
+     * Writes the given range of characters to the given buffer as UTF-8. Unlike
+     * {@link ByteBufUtil#writeUtf8(ByteBuf, CharSequence, int, int)}, this method never reserves more space than it
+     * actually needs, and so may be used to fill a buffer of exactly the expected size. Unpaired surrogates are written
+     * as {@code '?'} for consistency with {@link ByteBufUtil#utf8Bytes(CharSequence, int, int)}.
+     */
+    private static void writeUtf8(final String value, final int start, final int end, final ByteBuf out) {
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+
+            if (c < 0x80) {
+                out.writeByte(c);
+            } else if (c < 0x800) {
+                out.writeByte(0xc0 | (c >> 6));
+                out.writeByte(0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+
+                    out.writeByte(0xf0 | (codePoint >> 18));
+                    out.writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+                    out.writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+                    out.writeByte(0x80 | (codePoint & 0x3f));
+                } else {
+                    out.writeByte('?');
+                }
+            } else {
+                out.writeByte(0xe0 | (c >> 12));
+                out.writeByte(0x80 | ((c >> 6) & 0x3f));
+                out.writeByte(0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private static void writeEscapedCharacter(final char c, final ByteBuf out) {
+        out.writeByte('\\');
+
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                out.writeByte(c);
+                break;
+
+            case '\b':
+                out.writeByte('b');
+                break;
+
+            case '\f':
+                out.writeByte('f');
+                break;
+
+            case '\n':
+                out.writeByte('n');
+                break;
+
+            case '\r':
+                out.writeByte('r');
+                break;
+
+            case '\t':
+                out.writeByte('t');
+                break;
+
+            default:
+                out.writeByte('u');
+                out.writeByte('0');
+                out.writeByte('0');
+                out.writeByte(Character.forDigit((c >> 4) & 0xf, 16));
+                out.writeByte(Character.forDigit(c & 0xf, 16));
+                break;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.util.UUID;
 public class SimpleApnsPushNotification implements ApnsPushNotification {
 
     private final String token;
+    private final DeviceToken deviceToken;
     private final String payload;
     private final Instant invalidationTime;
     private final DeliveryPriority priority;
@@ -192,7 +193,61 @@ public class SimpleApnsPushNotification implements ApnsPushNotification {
      * will assign a unique identifier automatically
      */
     public SimpleApnsPushNotification(final String token, final String topic, final String payload, final Instant invalidationTime, final DeliveryPriority priority, final PushType pushType, final String collapseId, final UUID apnsId) {
-        this.token = Objects.requireNonNull(token, "Destination device token must not be null.");
+        this(Objects.requireNonNull(token, "Destination device token must not be null."), null, topic, payload,
+                invalidationTime, priority, pushType, collapseId, apnsId);
+    }
+
+    /**
+     * Constructs a new push notification with the given device token, topic, and payload. A default expiration time is
+     * set for the notification; callers that require immediate expiration or a non-default expiration period should use
+     * a factory method that accepts an expiration time as an argument. An "immediate" delivery priority is used for the
+     * notification, and as such the payload should contain an alert, sound, or badge component. No push notification
+     * type is specified.
+     *
+     * @param deviceToken the device token to which this push notification should be delivered
+     * @param topic the topic to which this notification should be sent
+     * @param payload the payload to include in this push notification
+     *
+     * @return a new push notification for the given device token
+     *
+     * @see DeliveryPriority#IMMEDIATE
+     * @see #DEFAULT_EXPIRATION_PERIOD
+     *
+     * @since 0.16
+     */
+    public static SimpleApnsPushNotification forDeviceToken(final DeviceToken deviceToken, final String topic, final String payload) {
+        return forDeviceToken(deviceToken, topic, payload, Instant.now().plus(DEFAULT_EXPIRATION_PERIOD), DeliveryPriority.IMMEDIATE, null, null, null);
+    }
+
+    /**
+     * Constructs a new push notification with the given device token, topic, payload, delivery expiration time, delivery
+     * priority, push type, "collapse identifier," and unique push notification identifier.
+     *
+     * @param deviceToken the device token to which this push notification should be delivered; must not be
+     * {@code null}
+     * @param topic the topic to which this notification should be sent; must not be {@code null}
+     * @param payload the payload to include in this push notification; must not be {@code null}
+     * @param invalidationTime the time at which Apple's servers should stop trying to deliver this message; if
+     * {@code null}, no delivery attempts beyond the first will be made
+     * @param priority the priority with which this notification should be delivered to the receiving device
+     * @param pushType the type of push notification to be delivered
+     * @param collapseId the "collapse identifier" for this notification, which allows it to supersede or be superseded
+     * by other notifications with the same collapse identifier
+     * @param apnsId the unique identifier for this notification; may be {@code null}, in which case the APNs server
+     * will assign a unique identifier automatically
+     *
+     * @return a new push notification for the given device token
+     *
+     * @since 0.16
+     */
+    public static SimpleApnsPushNotification forDeviceToken(final DeviceToken deviceToken, final String topic, final String payload, final Instant invalidationTime, final DeliveryPriority priority, final PushType pushType, final String collapseId, final UUID apnsId) {
+        return new SimpleApnsPushNotification(Objects.requireNonNull(deviceToken, "Destination device token must not be null.").toString(),
+                deviceToken, topic, payload, invalidationTime, priority, pushType, collapseId, apnsId);
+    }
+
+    private SimpleApnsPushNotification(final String token, final DeviceToken deviceToken, final String topic, final String payload, final Instant invalidationTime, final DeliveryPriority priority, final PushType pushType, final String collapseId, final UUID apnsId) {
+        this.token = token;
+        this.deviceToken = deviceToken;
         this.topic = Objects.requireNonNull(topic, "Destination topic must not be null.");
         this.payload = Objects.requireNonNull(payload, "Payload must not be null.");
         this.invalidationTime = invalidationTime;
@@ -212,6 +267,20 @@ public class SimpleApnsPushNotification implements ApnsPushNotification {
         return this.token;
     }
 
+    /**
+     * Returns the device token to which this push notification should be delivered if this notification was constructed
+     * with a {@link DeviceToken}.
+     *
+     * @return the device token to which this push notification should be delivered, or {@code null} if this
+     * notification was constructed with a token string
+     *
+     * @since 0.16
+     */
+    @Override
+    public DeviceToken getDeviceToken() {
+        return this.deviceToken;
+    }
+
     /**
      * Returns the payload to include in this push notification.
      *
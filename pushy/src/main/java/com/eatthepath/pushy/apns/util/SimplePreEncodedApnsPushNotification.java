@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import com.eatthepath.pushy.apns.DeliveryPriority;
+import com.eatthepath.pushy.apns.PreEncodedApnsPushNotification;
+import com.eatthepath.pushy.apns.PushType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * <p>A simple and immutable implementation of the {@link PreEncodedApnsPushNotification} interface. Many instances may
+ * share the same encoded payload buffer; for example, callers sending the same message to many devices may encode the
+ * payload once and construct a notification for each device token with the same buffer:</p>
+ *
+ * <pre>final ByteBuf payload = Unpooled.unreleasableBuffer(
+ *         Unpooled.copiedBuffer(new ApnsPayloadBuilder().setAlertBody("Hello!").build(), StandardCharsets.UTF_8));
+ *
+ * for (final String token : tokens) {
+ *     client.sendNotification(new SimplePreEncodedApnsPushNotification(token, topic, payload));
+ * }</pre>
+ *
+ * @see ApnsPayloadBuilder
+ *
+ * @since 0.16
+ */
+public class SimplePreEncodedApnsPushNotification implements PreEncodedApnsPushNotification {
+
+    private final String token;
+    private final ByteBuf encodedPayload;
+    private final Instant invalidationTime;
+    private final DeliveryPriority priority;
+    private final PushType pushType;
+    private final String topic;
+    private final String collapseId;
+    private final UUID apnsId;
+
+    /**
+     * Constructs a new push notification with the given token, topic, and UTF-8-encoded payload. A default expiration
+     * time is set for the notification, an "immediate" delivery priority is used, and no push notification type is
+     * specified.
+     *
+     * @param token the device token to which this push notification should be delivered
+     * @param topic the topic to which this notification should be sent
+     * @param encodedPayload the UTF-8-encoded payload to include in this push notification; the bytes of the given array
+     * are not copied and must not be modified after construction
+     *
+     * @see SimpleApnsPushNotification#DEFAULT_EXPIRATION_PERIOD
+     */
+    public SimplePreEncodedApnsPushNotification(final String token, final String topic, final byte[] encodedPayload) {
+        this(token, topic, Unpooled.wrappedBuffer(Objects.requireNonNull(encodedPayload, "Payload must not be null.")));
+    }
+
+    /**
+     * Constructs a new push notification with the given token, topic, and UTF-8-encoded payload. A default expiration
+     * time is set for the notification, an "immediate" delivery priority is used, and no push notification type is
+     * specified.
+     *
+     * @param token the device token to which this push notification should be delivered
+     * @param topic the topic to which this notification should be sent
+     * @param encodedPayload the UTF-8-encoded payload to include in this push notification
+     *
+     * @see SimpleApnsPushNotification#DEFAULT_EXPIRATION_PERIOD
+     * @see PreEncodedApnsPushNotification#getEncodedPayload()
+     */
+    public SimplePreEncodedApnsPushNotification(final String token, final String topic, final ByteBuf encodedPayload) {
+        this(token, topic, encodedPayload, Instant.now().plus(SimpleApnsPushNotification.DEFAULT_EXPIRATION_PERIOD),
+                DeliveryPriority.IMMEDIATE, null, null, null);
+    }
+
+    /**
+     * Constructs a new push notification with the given token, topic, UTF-8-encoded payload, delivery expiration time,
+     * delivery priority, push notification type, "collapse identifier," and unique push notification identifier.
+     *
+     * @param token the device token to which this push notification should be delivered; must not be {@code null}
+     * @param topic the topic to which this notification should be sent; must not be {@code null}
+     * @param encodedPayload the UTF-8-encoded payload to include in this push notification; must not be {@code null}
+     * @param invalidationTime the time at which Apple's servers should stop trying to deliver this message; if
+     * {@code null}, no delivery attempts beyond the first will be made
+     * @param priority the priority with which this notification should be delivered to the receiving device
+     * @param pushType the type of push notification to be delivered
+     * @param collapseId the "collapse identifier" for this notification, which allows it to supersede or be superseded
+     * by other notifications with the same collapse identifier
+     * @param apnsId the unique identifier for this notification; may be {@code null}, in which case the APNs server
+     * will assign a unique identifier automatically
+     *
+     * @see PreEncodedApnsPushNotification#getEncodedPayload()
+     */
+    public SimplePreEncodedApnsPushNotification(final String token, final String topic, final ByteBuf encodedPayload, final Instant invalidationTime, final DeliveryPriority priority, final PushType pushType, final String collapseId, final UUID apnsId) {
+        this.token = Objects.requireNonNull(token, "Destination device token must not be null.");
+        this.topic = Objects.requireNonNull(topic, "Destination topic must not be null.");
+        this.encodedPayload = Objects.requireNonNull(encodedPayload, "Payload must not be null.");
+        this.invalidationTime = invalidationTime;
+        this.priority = priority;
+        this.pushType = pushType;
+        this.collapseId = collapseId;
+        this.apnsId = apnsId;
+    }
+
+    @Override
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Returns the payload to include in this push notification. Note that the payload is decoded from the encoded
+     * payload buffer each time this method is called.
+     *
+     * @return the payload to include in this push notification
+     */
+    @Override
+    public String getPayload() {
+        return this.encodedPayload.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public ByteBuf getEncodedPayload() {
+        return this.encodedPayload;
+    }
+
+    @Override
+    public Instant getExpiration() {
+        return this.invalidationTime;
+    }
+
+    @Override
+    public DeliveryPriority getPriority() {
+        return this.priority;
+    }
+
+    @Override
+    public PushType getPushType() {
+        return this.pushType;
+    }
+
+    @Override
+    public String getTopic() {
+        return this.topic;
+    }
+
+    @Override
+    public String getCollapseId() {
+        return this.collapseId;
+    }
+
+    @Override
+    public UUID getApnsId() {
+        return this.apnsId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final SimplePreEncodedApnsPushNotification that = (SimplePreEncodedApnsPushNotification) o;
+
+        return token.equals(that.token) &&
+                encodedPayload.equals(that.encodedPayload) &&
+                Objects.equals(invalidationTime, that.invalidationTime) &&
+                priority == that.priority &&
+                pushType == that.pushType &&
+                topic.equals(that.topic) &&
+                Objects.equals(collapseId, that.collapseId) &&
+                Objects.equals(apnsId, that.apnsId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(token, encodedPayload, invalidationTime, priority, pushType, topic, collapseId, apnsId);
+    }
+
+    @Override
+    public String toString() {
+        return "SimplePreEncodedApnsPushNotification{" +
+                "token='" + token + '\'' +
+                ", payload='" + getPayload() + '\'' +
+                ", invalidationTime=" + invalidationTime +
+                ", priority=" + priority +
+                ", pushType=" + pushType +
+                ", topic='" + topic + '\'' +
+                ", collapseId='" + collapseId + '\'' +
+                ", apnsId=" + apnsId +
+                '}';
+    }
+}
@@ -22,6 +22,11 @@
 
 package com.eatthepath.pushy.apns.util;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
 /**
  * A utility class for processing APNs token strings.
  *
@@ -29,6 +34,21 @@ package com.eatthepath.pushy.apns.util;
  */
 public class TokenUtil {
 
+    private static final byte[] HEX_DIGIT_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_DIGIT_VALUES, (byte) -1);
+
+        for (int i = 0; i < 10; i++) {
+            HEX_DIGIT_VALUES['0' + i] = (byte) i;
+        }
+
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGIT_VALUES['a' + i] = (byte) (10 + i);
+            HEX_DIGIT_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
     private TokenUtil() {
         // A private constructor prevents callers from accidentally constucting a TokenUtil instance
     }
@@ -41,9 +61,206 @@ public class TokenUtil {
      *
      * @param tokenString the token string to sanitize
      *
-     * @return a "sanitized" version of the given token string suitable for sending to an APNs server
+     * @return a "sanitized" version of the given token string suitable for sending to an APNs server; if the given
+     * string contains only hexadecimal digits, the given string is returned as-is
      */
     public static String sanitizeTokenString(final String tokenString) {
-        return tokenString.replaceAll("[^a-fA-F0-9]", "");
+        final int length = tokenString.length();
+        int i = 0;
+
+        // Most token strings are already clean, and we can return them without copying anything
+        while (i < length && decodeHexDigit(tokenString.charAt(i)) >= 0) {
+            i++;
+        }
+
+        if (i == length) {
+            return tokenString;
+        }
+
+        final char[] sanitizedCharacters = new char[length - 1];
+        tokenString.getChars(0, i, sanitizedCharacters, 0);
+
+        int sanitizedLength = i;
+
+        for (i = i + 1; i < length; i++) {
+            final char c = tokenString.charAt(i);
+
+            if (decodeHexDigit(c) >= 0) {
+                sanitizedCharacters[sanitizedLength++] = c;
+            }
+        }
+
+        return new String(sanitizedCharacters, 0, sanitizedLength);
+    }
+
+    /**
+     * Decodes the given token string to an array of bytes. Like {@link #sanitizeTokenString(String)}, this method
+     * ignores any characters other than hexadecimal digits, but decodes the token string in a single pass without
+     * producing any intermediate strings.
+     *
+     * @param tokenString the token string to decode; must not be {@code null}
+     *
+     * @return the bytes of the token represented by the given string
+     *
+     * @throws IllegalArgumentException if the given string does not contain a positive, even number of hexadecimal
+     * digits
+     *
+     * @since 0.16
+     */
+    public static byte[] decodeTokenString(final CharSequence tokenString) {
+        Objects.requireNonNull(tokenString, "Token string must not be null.");
+
+        final TokenDecoder decoder = new TokenDecoder(tokenString.length() / 2);
+
+        for (int i = 0; i < tokenString.length(); i++) {
+            decoder.accept(tokenString.charAt(i));
+        }
+
+        if (!decoder.hasToken()) {
+            throw new IllegalArgumentException("Token strings must contain a positive, even number of hexadecimal digits.");
+        }
+
+        return decoder.getTokenBytes();
+    }
+
+    /**
+     * Decodes each line of the given sequence of newline-separated token strings, passing the bytes of each token to
+     * the given consumer in order. As with {@link #decodeTokenString(CharSequence)}, characters other than hexadecimal
+     * digits are ignored. Lines that contain no hexadecimal digits at all are skipped silently, and lines that contain
+     * an odd number of hexadecimal digits are skipped and counted as invalid. Apart from the array of bytes passed to
+     * the consumer for each token, this method allocates no per-token objects.
+     *
+     * @param tokenStrings a sequence of newline-separated token strings; must not be {@code null}
+     * @param tokenConsumer a consumer to receive the bytes of each valid token; must not be {@code null}
+     *
+     * @return the number of invalid lines that were skipped
+     *
+     * @since 0.16
+     */
+    public static int decodeTokenStrings(final CharSequence tokenStrings, final Consumer<byte[]> tokenConsumer) {
+        Objects.requireNonNull(tokenStrings, "Token strings must not be null.");
+        Objects.requireNonNull(tokenConsumer, "Token consumer must not be null.");
+
+        final TokenDecoder decoder = new TokenDecoder(32);
+        int invalidLines = 0;
+
+        for (int i = 0; i < tokenStrings.length(); i++) {
+            final char c = tokenStrings.charAt(i);
+
+            if (c == '\n') {
+                invalidLines += decoder.endLine(tokenConsumer);
+            } else {
+                decoder.accept(c);
+            }
+        }
+
+        return invalidLines + decoder.endLine(tokenConsumer);
+    }
+
+    /**
+     * Decodes each line of the given buffer of newline-separated, ASCII- or UTF-8-encoded token strings, passing the
+     * bytes of each token to the given consumer in order. Bytes between the buffer's position and limit are decoded;
+     * the buffer's position is not changed. As with {@link #decodeTokenString(CharSequence)}, characters other than
+     * hexadecimal digits are ignored. Lines that contain no hexadecimal digits at all are skipped silently, and lines
+     * that contain an odd number of hexadecimal digits are skipped and counted as invalid. Apart from the array of
+     * bytes passed to the consumer for each token, this method allocates no per-token objects.
+     *
+     * @param tokenStrings a buffer of newline-separated token strings; must not be {@code null}
+     * @param tokenConsumer a consumer to receive the bytes of each valid token; must not be {@code null}
+     *
+     * @return the number of invalid lines that were skipped
+     *
+     * @since 0.16
+     */
+    public static int decodeTokenStrings(final ByteBuffer tokenStrings, final Consumer<byte[]> tokenConsumer) {
+        Objects.requireNonNull(tokenStrings, "Token strings must not be null.");
+        Objects.requireNonNull(tokenConsumer, "Token consumer must not be null.");
+
+        final TokenDecoder decoder = new TokenDecoder(32);
+        int invalidLines = 0;
+
+        for (int i = tokenStrings.position(); i < tokenStrings.limit(); i++) {
+            final byte b = tokenStrings.get(i);
+
+            if (b == '\n') {
+                invalidLines += decoder.endLine(tokenConsumer);
+            } else {
+                // Bytes that are part of multi-byte UTF-8 sequences are all negative, and will be ignored
+                decoder.accept((char) (b & 0xff));
+            }
+        }
+
+        return invalidLines + decoder.endLine(tokenConsumer);
+    }
+
+    /**
+     * Returns the value of the given hexadecimal digit, or -1 if the given character is not a hexadecimal digit.
+     *
+     * @param c the character to decode
+     *
+     * @return the value of the given hexadecimal digit, or -1 if the given character is not a hexadecimal digit
+     */
+    static int decodeHexDigit(final char c) {
+        return c < HEX_DIGIT_VALUES.length ? HEX_DIGIT_VALUES[c] : -1;
+    }
+
+    /**
+     * Accumulates the bytes of a single token from a stream of characters, ignoring characters other than hexadecimal
+     * digits. Decoders can be reused for multiple tokens, and retain their internal buffer between tokens.
+     */
+    private static final class TokenDecoder {
+
+        private byte[] tokenBytes;
+        private int digitCount = 0;
+
+        TokenDecoder(final int initialCapacity) {
+            this.tokenBytes = new byte[Math.max(initialCapacity, 1)];
+        }
+
+        void accept(final char c) {
+            final int value = decodeHexDigit(c);
+
+            if (value >= 0) {
+                final int index = this.digitCount >> 1;
+
+                if ((this.digitCount & 1) == 0) {
+                    if (index == this.tokenBytes.length) {
+                        this.tokenBytes = Arrays.copyOf(this.tokenBytes, this.tokenBytes.length * 2);
+                    }
+
+                    this.tokenBytes[index] = (byte) (value << 4);
+                } else {
+                    this.tokenBytes[index] |= (byte) value;
+                }
+
+                this.digitCount++;
+            }
+        }
+
+        boolean hasToken() {
+            return this.digitCount > 0 && (this.digitCount & 1) == 0;
+        }
+
+        byte[] getTokenBytes() {
+            return Arrays.copyOf(this.tokenBytes, this.digitCount >> 1);
+        }
+
+        /**
+         * Finishes the current line, passing the decoded token to the given consumer if the line contained a valid
+         * token, and prepares this decoder for the next line.
+         *
+         * @return 1 if the line contained an invalid token or 0 otherwise
+         */
+        int endLine(final Consumer<byte[]> tokenConsumer) {
+            final boolean invalid = (this.digitCount & 1) != 0;
+
+            if (this.hasToken()) {
+                tokenConsumer.accept(this.getTokenBytes());
+            }
+
+            this.digitCount = 0;
+
+            return invalid ? 1 : 0;
+        }
     }
 }
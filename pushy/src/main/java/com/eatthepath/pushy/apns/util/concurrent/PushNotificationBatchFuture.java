@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util.concurrent;
+
+import com.eatthepath.pushy.apns.ApnsPushNotification;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A push notification batch future represents the aggregate result of an asynchronous operation on a group of
+ * {@link ApnsPushNotification ApnsPushNotifications}. A batch future completes when all of the individual
+ * {@link PushNotificationFuture PushNotificationFutures} in the batch have completed, regardless of whether any of
+ * those individual futures completed exceptionally; callers should inspect individual futures to determine the outcome
+ * of each operation.
+ *
+ * @param <P> the type of push notification sent
+ * @param <V> the type of value returned by each individual operation
+ *
+ * @author <a href="https://github.com/jchambers">Jon Chambers</a>
+ */
+public class PushNotificationBatchFuture<P extends ApnsPushNotification, V> extends CompletableFuture<Void> {
+
+    private final List<PushNotificationFuture<P, V>> pushNotificationFutures;
+
+    public PushNotificationBatchFuture(final List<PushNotificationFuture<P, V>> pushNotificationFutures) {
+        super();
+
+        this.pushNotificationFutures = Collections.unmodifiableList(pushNotificationFutures);
+
+        //noinspection ZeroLengthArrayAllocation
+        CompletableFuture.allOf(pushNotificationFutures.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, cause) -> this.complete(null));
+    }
+
+    /**
+     * Returns the individual futures for each push notification in this batch, in the order in which the push
+     * notifications were provided.
+     *
+     * @return the individual futures for each push notification in this batch
+     */
+    public List<PushNotificationFuture<P, V>> getPushNotificationFutures() {
+        return this.pushNotificationFutures;
+    }
+}
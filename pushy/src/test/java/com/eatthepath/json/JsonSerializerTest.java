@@ -1,11 +1,14 @@
 package com.eatthepath.json;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -55,6 +58,71 @@ public class JsonSerializerTest {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource("parametersForWriteJsonTextMap")
+    void writeJsonTextByteBufMap(final Map<?, ?> map, final String expectedValue) {
+        final ByteBuf heapBuffer = Unpooled.buffer(1);
+        final ByteBuf directBuffer = Unpooled.directBuffer(1);
+
+        try {
+            assertEquals(expectedValue.length(), JsonSerializer.writeJsonText(map, heapBuffer));
+            assertEquals(expectedValue, heapBuffer.toString(StandardCharsets.UTF_8));
+
+            assertEquals(expectedValue.length(), JsonSerializer.writeJsonText(map, directBuffer));
+            assertEquals(expectedValue, directBuffer.toString(StandardCharsets.UTF_8));
+        } finally {
+            heapBuffer.release();
+            directBuffer.release();
+        }
+    }
+
+    @Test
+    void writeJsonTextByteBufNonAscii() {
+        final Map<String, Object> map = Collections.singletonMap("Zo\u00eb", Arrays.asList("caf\u00e9 \ud83c\udf89", "\"/\n"));
+        final String expectedValue = JsonSerializer.writeJsonTextAsString(map);
+
+        final ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte('x');
+
+        try {
+            assertEquals(expectedValue.getBytes(StandardCharsets.UTF_8).length, JsonSerializer.writeJsonText(map, buffer));
+            assertEquals('x', buffer.readByte());
+            assertEquals(expectedValue, buffer.toString(StandardCharsets.UTF_8));
+
+            buffer.clear();
+            JsonSerializer.writeJsonText(map.values(), buffer);
+            assertEquals(JsonSerializer.writeJsonTextAsString(map.values()), buffer.toString(StandardCharsets.UTF_8));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    void getUtf8EncodedLength() {
+        final Map<String, Object> map = Collections.singletonMap("Zo\u00eb", Arrays.asList("caf\u00e9 \ud83c\udf89 \u65e5", "\"/\n\u0001", 12));
+
+        assertEquals(JsonSerializer.writeJsonTextAsString(map).getBytes(StandardCharsets.UTF_8).length,
+                JsonSerializer.getUtf8EncodedLength(map));
+
+        assertEquals(JsonSerializer.writeJsonTextAsString(map.values()).getBytes(StandardCharsets.UTF_8).length,
+                JsonSerializer.getUtf8EncodedLength(map.values()));
+
+        assertEquals(4, JsonSerializer.getUtf8EncodedLength((Map<?, ?>) null));
+    }
+
+    @Test
+    void getEscapedCharacterLength() throws IOException {
+        for (char c = Character.MIN_VALUE; c < Character.MAX_VALUE; c++) {
+            final StringBuilder stringBuilder = new StringBuilder();
+            JsonSerializer.writeJsonValue(String.valueOf(c), stringBuilder);
+
+            // Subtract the enclosing quotes from the length of the JSON value
+            final int expectedEscapedLength = stringBuilder.length() - 2 > 1 ? stringBuilder.length() - 2 : 0;
+
+            assertEquals(expectedEscapedLength, JsonSerializer.getEscapedCharacterLength(c), "Character: " + (int) c);
+        }
+    }
+
     @Test
     void writeJsonTextMapNullKey() {
         final Map<?, ?> map = Collections.singletonMap(null, "test");
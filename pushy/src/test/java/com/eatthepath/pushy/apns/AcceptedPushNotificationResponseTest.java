@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AcceptedPushNotificationResponseTest {
+
+    private static final SimpleApnsPushNotification PUSH_NOTIFICATION =
+            new SimpleApnsPushNotification("device-token", "topic", "{}");
+
+    @Test
+    void testAcceptedResponse() {
+        final UUID apnsId = UUID.randomUUID();
+        final UUID apnsUniqueId = UUID.randomUUID();
+
+        final AcceptedPushNotificationResponse<SimpleApnsPushNotification> response =
+                new AcceptedPushNotificationResponse<>(PUSH_NOTIFICATION,
+                        AsciiString.of(apnsId.toString()), AsciiString.of(apnsUniqueId.toString()));
+
+        assertSame(PUSH_NOTIFICATION, response.getPushNotification());
+        assertTrue(response.isAccepted());
+        assertEquals(200, response.getStatusCode());
+        assertEquals(apnsId, response.getApnsId());
+        assertEquals(Optional.of(apnsUniqueId), response.getApnsUniqueId());
+        assertEquals(Optional.empty(), response.getRejectionReason());
+        assertEquals(Optional.empty(), response.getApnsRejectionReason());
+        assertEquals(Optional.empty(), response.getTokenInvalidationTimestamp());
+    }
+
+    @Test
+    void testGetApnsIdDecodedOnce() {
+        final AcceptedPushNotificationResponse<SimpleApnsPushNotification> response =
+                new AcceptedPushNotificationResponse<>(PUSH_NOTIFICATION,
+                        AsciiString.of(UUID.randomUUID().toString()), AsciiString.of(UUID.randomUUID().toString()));
+
+        assertSame(response.getApnsId(), response.getApnsId());
+        assertSame(response.getApnsUniqueId().orElse(null), response.getApnsUniqueId().orElse(null));
+    }
+
+    @Test
+    void testMissingApnsUniqueId() {
+        final UUID apnsId = UUID.randomUUID();
+
+        final AcceptedPushNotificationResponse<SimpleApnsPushNotification> response =
+                new AcceptedPushNotificationResponse<>(PUSH_NOTIFICATION, AsciiString.of(apnsId.toString()), null);
+
+        assertEquals(apnsId, response.getApnsId());
+        assertEquals(Optional.empty(), response.getApnsUniqueId());
+    }
+
+    @Test
+    void testMalformedApnsUniqueId() {
+        final UUID apnsId = UUID.randomUUID();
+
+        final AcceptedPushNotificationResponse<SimpleApnsPushNotification> response =
+                new AcceptedPushNotificationResponse<>(PUSH_NOTIFICATION,
+                        AsciiString.of(apnsId.toString()), AsciiString.of("definitely-not-a-uuid"));
+
+        assertEquals(apnsId, response.getApnsId());
+        assertEquals(Optional.empty(), response.getApnsUniqueId());
+
+        // Reading a malformed header again should neither throw nor produce a different result
+        assertEquals(Optional.empty(), response.getApnsUniqueId());
+        assertNotNull(response.toString());
+    }
+}
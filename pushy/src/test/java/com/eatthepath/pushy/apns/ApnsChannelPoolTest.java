@@ -27,6 +27,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultChannelPromise;
 import io.netty.channel.local.LocalChannel;
+import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.util.concurrent.*;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -121,6 +122,49 @@ public class ApnsChannelPoolTest {
         }
     }
 
+    /**
+     * Creates channels with real client handlers that have received a {@code SETTINGS} frame with the given maximum
+     * number of concurrent streams, or with no stream limit at all if the given value is {@code null}.
+     */
+    private static class StreamCapacityChannelFactory implements PooledObjectFactory<Channel> {
+        private final Integer[] maxConcurrentStreams;
+        private int channelsCreated = 0;
+
+        private StreamCapacityChannelFactory(final Integer... maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        @Override
+        public Future<Channel> create(final Promise<Channel> promise) {
+            final TestChannel channel = new TestChannel(true);
+            channel.attr(ApnsChannelFactory.CHANNEL_READY_PROMISE_ATTRIBUTE_KEY).set(new DefaultPromise<>(EVENT_EXECUTOR));
+
+            final ApnsClientHandler handler = new ApnsClientHandler.ApnsClientHandlerBuilder()
+                    .authority("test")
+                    .build();
+
+            channel.pipeline().addLast(handler);
+
+            final Http2Settings settings = new Http2Settings();
+            final Integer maxConcurrentStreams = this.maxConcurrentStreams[this.channelsCreated++];
+
+            if (maxConcurrentStreams != null) {
+                settings.maxConcurrentStreams(maxConcurrentStreams);
+            }
+
+            handler.onSettingsRead(channel.pipeline().context(handler), settings);
+
+            promise.trySuccess(channel);
+            return promise;
+        }
+
+        @Override
+        public Future<Void> destroy(final Channel channel, final Promise<Void> promise) {
+            channel.close().addListener(new PromiseNotifier<>(promise));
+            return promise;
+        }
+    }
+
     private ApnsChannelPool pool;
     private TestChannelPoolMetricListener metricsListener;
 
@@ -218,6 +262,173 @@ public class ApnsChannelPoolTest {
         assertEquals(0, this.metricsListener.getConnectionsFailed());
     }
 
+    @Test
+    void testLockFreeAcquire() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new TestChannelFactory(), 2, EVENT_EXECUTOR, this.metricsListener, true);
+
+        final Future<Channel> firstAcquireFuture = pool.acquire();
+        final Future<Channel> secondAcquireFuture = pool.acquire();
+
+        assertTrue(firstAcquireFuture.await().isSuccess());
+        assertTrue(secondAcquireFuture.await().isSuccess());
+        assertNotSame(firstAcquireFuture.getNow(), secondAcquireFuture.getNow());
+
+        // Once the pool is full, channels should be shared without anybody needing to release them first
+        final Future<Channel> thirdAcquireFuture = pool.acquire();
+
+        assertTrue(thirdAcquireFuture.isDone(), "Acquisition from a full lock-free pool should complete immediately.");
+        assertTrue(thirdAcquireFuture.isSuccess());
+
+        assertTrue(thirdAcquireFuture.getNow() == firstAcquireFuture.getNow() ||
+                thirdAcquireFuture.getNow() == secondAcquireFuture.getNow());
+
+        pool.close().await();
+
+        assertEquals(2, this.metricsListener.getConnectionsAdded());
+        assertEquals(0, this.metricsListener.getConnectionsRemoved());
+        assertEquals(0, this.metricsListener.getConnectionsFailed());
+    }
+
+    @Test
+    void testLockFreeAcquireReplacesInactiveChannel() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new TestChannelFactory(), 1, EVENT_EXECUTOR, this.metricsListener, true);
+
+        final Future<Channel> firstAcquireFuture = pool.acquire();
+        assertTrue(firstAcquireFuture.await().isSuccess());
+
+        final Channel firstChannel = firstAcquireFuture.getNow();
+        ((TestChannel) firstChannel).setActive(false);
+
+        final Future<Channel> secondAcquireFuture = pool.acquire();
+        assertTrue(secondAcquireFuture.await().isSuccess());
+
+        final Channel secondChannel = secondAcquireFuture.getNow();
+
+        assertNotSame(firstChannel, secondChannel);
+        assertTrue(firstChannel.closeFuture().isSuccess());
+        assertFalse(secondChannel.closeFuture().isDone());
+
+        pool.close().await();
+
+        assertEquals(2, this.metricsListener.getConnectionsAdded());
+        assertEquals(1, this.metricsListener.getConnectionsRemoved());
+        assertEquals(0, this.metricsListener.getConnectionsFailed());
+    }
+
+    @Test
+    void testLockFreeAcquireReplacesClosedChannel() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new TestChannelFactory(), 2, EVENT_EXECUTOR, this.metricsListener, true);
+
+        final Future<Channel> firstAcquireFuture = pool.acquire();
+        final Future<Channel> secondAcquireFuture = pool.acquire();
+
+        assertTrue(firstAcquireFuture.await().isSuccess());
+        assertTrue(secondAcquireFuture.await().isSuccess());
+
+        final Channel closedChannel = firstAcquireFuture.getNow();
+        closedChannel.close().await();
+
+        // Close listeners (including the one that removes the channel from the pool's channel group) run on the
+        // executor; make sure they've had a chance to run before we try to acquire another channel
+        EVENT_EXECUTOR.submit(() -> {}).await();
+
+        // With two channels to choose from, selection would always prefer the surviving channel to the closed one, so
+        // the pool needs to notice the closed channel without selecting it
+        final Future<Channel> thirdAcquireFuture = pool.acquire();
+        assertTrue(thirdAcquireFuture.await().isSuccess());
+
+        final Channel replacementChannel = thirdAcquireFuture.getNow();
+
+        assertNotSame(closedChannel, replacementChannel);
+        assertNotSame(secondAcquireFuture.getNow(), replacementChannel);
+
+        for (int i = 0; i < 10; i++) {
+            final Future<Channel> acquireFuture = pool.acquire();
+
+            assertTrue(acquireFuture.await().isSuccess());
+            assertNotSame(closedChannel, acquireFuture.getNow());
+        }
+
+        pool.close().await();
+
+        assertEquals(3, this.metricsListener.getConnectionsAdded());
+        assertEquals(1, this.metricsListener.getConnectionsRemoved());
+        assertEquals(0, this.metricsListener.getConnectionsFailed());
+    }
+
+    @Test
+    void testAcquireLeastLoadedIdleChannel() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new StreamCapacityChannelFactory(100, 1), 2, EVENT_EXECUTOR, this.metricsListener);
+
+        final Future<Channel> firstAcquireFuture = pool.acquire();
+        final Future<Channel> secondAcquireFuture = pool.acquire();
+
+        assertTrue(firstAcquireFuture.await().isSuccess());
+        assertTrue(secondAcquireFuture.await().isSuccess());
+
+        final Channel roomyChannel = firstAcquireFuture.getNow();
+        final Channel crowdedChannel = secondAcquireFuture.getNow();
+
+        // Release the crowded channel first so it has been idle the longest and would win on idle time alone
+        pool.release(crowdedChannel);
+        pool.release(roomyChannel);
+
+        final Future<Channel> thirdAcquireFuture = pool.acquire();
+        assertTrue(thirdAcquireFuture.await().isSuccess());
+        assertSame(roomyChannel, thirdAcquireFuture.getNow());
+
+        pool.release(thirdAcquireFuture.getNow());
+        pool.close().await();
+    }
+
+    @Test
+    void testLockFreeAcquireLeastLoadedChannel() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new StreamCapacityChannelFactory(1, 100), 2, EVENT_EXECUTOR, this.metricsListener, true);
+
+        final Future<Channel> firstAcquireFuture = pool.acquire();
+        final Future<Channel> secondAcquireFuture = pool.acquire();
+
+        assertTrue(firstAcquireFuture.await().isSuccess());
+        assertTrue(secondAcquireFuture.await().isSuccess());
+
+        final Channel roomyChannel = secondAcquireFuture.getNow();
+
+        for (int i = 0; i < 10; i++) {
+            final Future<Channel> acquireFuture = pool.acquire();
+
+            assertTrue(acquireFuture.await().isSuccess());
+            assertSame(roomyChannel, acquireFuture.getNow());
+        }
+
+        pool.close().await();
+    }
+
+    @Test
+    void testGetStreamCapacity() throws Exception {
+        final ApnsChannelPool pool =
+                new ApnsChannelPool(new StreamCapacityChannelFactory(10, null), 2, EVENT_EXECUTOR, this.metricsListener, true);
+
+        assertEquals(0, pool.getStreamCapacity());
+        assertEquals(0, pool.getAvailableStreamCapacity());
+
+        assertTrue(pool.acquire().await().isSuccess());
+        assertTrue(pool.acquire().await().isSuccess());
+
+        // The server didn't advertise a limit for the second channel, but it should still contribute a finite capacity
+        assertEquals(10 + ApnsClientHandler.DEFAULT_MAX_CONCURRENT_STREAMS, pool.getStreamCapacity());
+        assertEquals(10 + ApnsClientHandler.DEFAULT_MAX_CONCURRENT_STREAMS, pool.getAvailableStreamCapacity());
+
+        pool.close().await();
+
+        assertEquals(0, pool.getStreamCapacity());
+        assertEquals(0, pool.getAvailableStreamCapacity());
+    }
+
     @Test
     void testAcquireFromClosedPool() throws Exception {
         this.pool.close().await();
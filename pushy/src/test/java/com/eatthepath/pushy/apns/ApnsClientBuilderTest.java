@@ -30,6 +30,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.time.Duration;
 import java.security.KeyStore.PrivateKeyEntry;
 import java.security.cert.X509Certificate;
 
@@ -82,6 +83,15 @@ public class ApnsClientBuilderTest {
         }
     }
 
+    @Test
+    void testSetRetryPolicyIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ApnsClientBuilder()
+                .setRetryPolicy(-1, Duration.ofMillis(10), Duration.ofMillis(100)));
+
+        assertThrows(IllegalArgumentException.class, () -> new ApnsClientBuilder()
+                .setRetryPolicy(3, Duration.ofMillis(100), Duration.ofMillis(10)));
+    }
+
     @Test
     void testBuildClientWithNullPassword() {
         assertThrows(NullPointerException.class, () -> new ApnsClientBuilder()
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.server.AcceptAllPushNotificationHandlerFactory;
+import com.eatthepath.pushy.apns.server.MockApnsServer;
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationBatchFuture;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApnsClientGroupTest extends AbstractClientServerTest {
+
+    @ParameterizedTest
+    @EnumSource(ShardingStrategy.class)
+    void testSendNotifications(final ShardingStrategy shardingStrategy) throws Exception {
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+        final ApnsClientGroup clientGroup = this.buildClientGroupBuilder()
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .buildClientGroup(3, shardingStrategy);
+
+        final List<SimpleApnsPushNotification> notifications = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            notifications.add(new SimpleApnsPushNotification(generateRandomDeviceToken(), TOPIC, PAYLOAD));
+        }
+
+        try {
+            server.start(PORT).get();
+
+            assertTrue(clientGroup.sendNotification(notifications.get(0)).get().isAccepted());
+
+            final PushNotificationBatchFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> batchFuture =
+                    clientGroup.sendNotifications(notifications);
+
+            batchFuture.get();
+
+            assertEquals(notifications.size(), batchFuture.getPushNotificationFutures().size());
+
+            for (int i = 0; i < notifications.size(); i++) {
+                final PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> future =
+                        batchFuture.getPushNotificationFutures().get(i);
+
+                assertSame(notifications.get(i), future.getPushNotification());
+                assertTrue(future.get().isAccepted());
+            }
+        } finally {
+            clientGroup.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testGetShardIndex() throws Exception {
+        final ApnsClientGroup tokenHashGroup = this.buildClientGroupBuilder()
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .buildClientGroup(4, ShardingStrategy.TOKEN_HASH);
+
+        final ApnsClientGroup roundRobinGroup = this.buildClientGroupBuilder()
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .buildClientGroup(4, ShardingStrategy.ROUND_ROBIN);
+
+        try {
+            final Set<Integer> tokenHashShards = new HashSet<>();
+
+            for (int i = 0; i < 100; i++) {
+                final String token = generateRandomDeviceToken();
+
+                final int shardIndex =
+                        tokenHashGroup.getShardIndex(new SimpleApnsPushNotification(token.toLowerCase(), TOPIC, PAYLOAD));
+
+                assertEquals(shardIndex,
+                        tokenHashGroup.getShardIndex(new SimpleApnsPushNotification(token.toUpperCase(), TOPIC, PAYLOAD)));
+
+                tokenHashShards.add(shardIndex);
+            }
+
+            assertEquals(4, tokenHashShards.size());
+
+            final SimpleApnsPushNotification notification = new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD);
+            final int firstShard = roundRobinGroup.getShardIndex(notification);
+
+            for (int i = 1; i < 8; i++) {
+                assertEquals((firstShard + i) % 4, roundRobinGroup.getShardIndex(notification));
+            }
+        } finally {
+            tokenHashGroup.close().get();
+            roundRobinGroup.close().get();
+        }
+    }
+
+    @Test
+    void testCloseWithOwnResources() throws Exception {
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+        final ApnsClientGroup clientGroup = this.buildClientGroupBuilder().buildClientGroup(2, ShardingStrategy.TOKEN_HASH);
+
+        try {
+            server.start(PORT).get();
+
+            assertEquals(2, clientGroup.getShardCount());
+            assertTrue(clientGroup.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)).get().isAccepted());
+        } finally {
+            clientGroup.close().get();
+            server.shutdown().get();
+        }
+
+        final PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> future =
+                clientGroup.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD));
+
+        assertThrows(Exception.class, future::get);
+
+        // Closing a group more than once should be harmless
+        clientGroup.close().get();
+    }
+
+    @Test
+    void testBuildClientGroupIllegalShardCount() {
+        assertThrows(IllegalArgumentException.class,
+                () -> this.buildClientGroupBuilder().buildClientGroup(0, ShardingStrategy.TOKEN_HASH));
+    }
+
+    private ApnsClientBuilder buildClientGroupBuilder() {
+        return new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey);
+    }
+}
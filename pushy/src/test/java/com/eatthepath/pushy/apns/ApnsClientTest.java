@@ -23,8 +23,16 @@
 package com.eatthepath.pushy.apns;
 
 import com.eatthepath.pushy.apns.server.*;
+import com.eatthepath.pushy.apns.util.ApnsPayloadBuilder;
 import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import com.eatthepath.pushy.apns.util.SimplePreEncodedApnsPushNotification;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationBatchFuture;
 import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.util.concurrent.EventExecutor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -33,11 +41,21 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import javax.net.ssl.SSLHandshakeException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -131,6 +149,14 @@ public class ApnsClientTest extends AbstractClientServerTest {
             }
         }
 
+        void waitForAcceptedNotifications(final int acceptedNotifications) throws InterruptedException {
+            synchronized (this.acceptedNotifications) {
+                while (this.acceptedNotifications.get() < acceptedNotifications) {
+                    this.acceptedNotifications.wait();
+                }
+            }
+        }
+
         void waitForNonZeroRejectedNotifications() throws InterruptedException {
             synchronized (this.rejectedNotifications) {
                 while (this.rejectedNotifications.get() == 0) {
@@ -139,6 +165,14 @@ public class ApnsClientTest extends AbstractClientServerTest {
             }
         }
 
+        void waitForConnectionsAdded(final int connectionsAdded) throws InterruptedException {
+            synchronized (this.connectionsAdded) {
+                while (this.connectionsAdded.get() < connectionsAdded) {
+                    this.connectionsAdded.wait();
+                }
+            }
+        }
+
         void waitForNonZeroFailedConnections() throws InterruptedException {
             synchronized (this.failedConnectionAttempts) {
                 while (this.failedConnectionAttempts.get() == 0) {
@@ -471,6 +505,690 @@ public class ApnsClientTest extends AbstractClientServerTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void testSendNotifications(final boolean useTokenAuthentication) throws Exception {
+        final int notificationCount = 1000;
+
+        final List<SimpleApnsPushNotification> pushNotifications = new ArrayList<>();
+
+        for (int i = 0; i < notificationCount; i++) {
+            final String token = ApnsClientTest.generateRandomDeviceToken();
+            final String payload = ApnsClientTest.generateRandomPayload();
+
+            pushNotifications.add(new SimpleApnsPushNotification(token, TOPIC, payload));
+        }
+
+        final TestClientMetricsListener metricsListener = new TestClientMetricsListener();
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+        final ApnsClient client = useTokenAuthentication ?
+                this.buildTokenAuthenticationClient(metricsListener) : this.buildTlsAuthenticationClient(metricsListener);
+
+        try {
+            server.start(PORT).get();
+
+            final PushNotificationBatchFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> batchFuture =
+                    client.sendNotifications(pushNotifications);
+
+            assertEquals(notificationCount, batchFuture.getPushNotificationFutures().size());
+            assertDoesNotThrow(() -> batchFuture.get());
+
+            for (int i = 0; i < notificationCount; i++) {
+                final PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> future =
+                        batchFuture.getPushNotificationFutures().get(i);
+
+                assertSame(pushNotifications.get(i), future.getPushNotification());
+                assertTrue(future.get().isAccepted());
+            }
+
+            // Acknowledgement metrics may still be catching up after the batch completes, but every notification
+            // must have been written before its reply arrived
+            assertEquals(notificationCount, metricsListener.getSentNotifications().get());
+
+            metricsListener.waitForAcceptedNotifications(notificationCount);
+            assertEquals(notificationCount, metricsListener.getAcceptedNotifications().get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsAfterClose() throws Exception {
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+        client.close().get();
+
+        final PushNotificationBatchFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> batchFuture =
+                client.sendNotifications(Arrays.asList(
+                        new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD),
+                        new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)));
+
+        assertDoesNotThrow(() -> batchFuture.get(),
+                "Batch futures should complete normally even if individual notifications fail.");
+
+        for (final PushNotificationFuture<?, ?> future : batchFuture.getPushNotificationFutures()) {
+            assertThrows(ExecutionException.class, future::get,
+                    "Once a client has closed, attempts to send push notifications should fail.");
+        }
+    }
+
+    @Test
+    void testSendManyNotificationsWithLockFreeChannelSelection() throws Exception {
+        final int notificationCount = 1000;
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setConcurrentConnections(4)
+                .setLockFreeChannelSelectionEnabled(true)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final List<CompletableFuture<PushNotificationResponse<SimpleApnsPushNotification>>> futures =
+                    new ArrayList<>();
+
+            for (int i = 0; i < notificationCount; i++) {
+                futures.add(client.sendNotification(new SimpleApnsPushNotification(
+                        ApnsClientTest.generateRandomDeviceToken(), TOPIC, ApnsClientTest.generateRandomPayload())));
+            }
+
+            //noinspection ZeroLengthArrayAllocation
+            assertDoesNotThrow(() -> CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testGetEventLoops() throws Exception {
+        final ApnsClient singleConnectionClient = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .build();
+
+        final ApnsClient multipleConnectionClient = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setConcurrentConnections(4)
+                .build();
+
+        try {
+            final Set<EventLoop> eventLoopsInGroup = new HashSet<>();
+
+            for (final EventExecutor executor : CLIENT_RESOURCES.getEventLoopGroup()) {
+                eventLoopsInGroup.add((EventLoop) executor);
+            }
+
+            // Clients shouldn't spread connections across more event loops than they have connections
+            assertEquals(1, singleConnectionClient.getEventLoops().size());
+            assertTrue(eventLoopsInGroup.containsAll(singleConnectionClient.getEventLoops()));
+
+            assertEquals(eventLoopsInGroup, new HashSet<>(multipleConnectionClient.getEventLoops()));
+        } finally {
+            singleConnectionClient.close().get();
+            multipleConnectionClient.close().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsFromClientEventLoops() throws Exception {
+        final int concurrentConnections = 4;
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+
+        // Notifications are sent to a different topic from each event loop; writes are reported from the event loop of
+        // the channel to which each notification was written
+        final Map<String, Set<Thread>> writingThreadsByTopic = new ConcurrentHashMap<>();
+
+        final TestClientMetricsListener metricsListener = new TestClientMetricsListener() {
+            @Override
+            public void handleNotificationSent(final String topic) {
+                writingThreadsByTopic.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+                super.handleNotificationSent(topic);
+            }
+        };
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setConcurrentConnections(concurrentConnections)
+                .setLockFreeChannelSelectionEnabled(true)
+                .setMetricsListener(metricsListener)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            // Fill the pool so every event loop has connections of its own before we start checking where writes go
+            final List<CompletableFuture<PushNotificationResponse<SimpleApnsPushNotification>>> warmUpFutures =
+                    new ArrayList<>();
+
+            for (int i = 0; i < concurrentConnections; i++) {
+                warmUpFutures.add(client.sendNotification(new SimpleApnsPushNotification(
+                        ApnsClientTest.generateRandomDeviceToken(), TOPIC, ApnsClientTest.generateRandomPayload())));
+            }
+
+            //noinspection ZeroLengthArrayAllocation
+            CompletableFuture.allOf(warmUpFutures.toArray(new CompletableFuture<?>[0])).get();
+            metricsListener.waitForConnectionsAdded(concurrentConnections);
+
+            final List<EventLoop> eventLoops = client.getEventLoops();
+
+            final List<CompletableFuture<PushNotificationResponse<SimpleApnsPushNotification>>> futures =
+                    new ArrayList<>();
+
+            for (int i = 0; i < 100; i++) {
+                for (int j = 0; j < eventLoops.size(); j++) {
+                    final String topic = TOPIC + ".loop" + j;
+
+                    futures.add(eventLoops.get(j).submit(() -> client.sendNotification(new SimpleApnsPushNotification(
+                            ApnsClientTest.generateRandomDeviceToken(), topic, ApnsClientTest.generateRandomPayload())))
+                            .get());
+                }
+            }
+
+            //noinspection ZeroLengthArrayAllocation
+            assertDoesNotThrow(() -> CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get());
+
+            for (int j = 0; j < eventLoops.size(); j++) {
+                final Set<Thread> writingThreads = writingThreadsByTopic.get(TOPIC + ".loop" + j);
+
+                assertNotNull(writingThreads);
+
+                for (final Thread writingThread : writingThreads) {
+                    assertTrue(eventLoops.get(j).inEventLoop(writingThread),
+                            "Notifications sent from an event loop should be written to a channel on that event loop.");
+                }
+            }
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsFromIterator() throws Exception {
+        final int notificationCount = 200;
+        final int maxConcurrentStreams = 8;
+
+        final MockApnsServer server = new MockApnsServerBuilder()
+                .setServerCredentials(getClass().getResourceAsStream(SERVER_CERTIFICATES_FILENAME), getClass().getResourceAsStream(SERVER_KEY_FILENAME), null)
+                .setTrustedClientCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setEventLoopGroup(SERVER_EVENT_LOOP_GROUP)
+                .setHandlerFactory(new AcceptAllPushNotificationHandlerFactory())
+                .setMaxConcurrentStreams(maxConcurrentStreams)
+                .build();
+
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+
+        final AtomicInteger pulledNotifications = new AtomicInteger(0);
+        final AtomicInteger acceptedNotifications = new AtomicInteger(0);
+        final AtomicInteger handledNotifications = new AtomicInteger(0);
+        final AtomicInteger maxPendingNotifications = new AtomicInteger(0);
+
+        final Iterator<SimpleApnsPushNotification> notifications = new Iterator<SimpleApnsPushNotification>() {
+
+            @Override
+            public boolean hasNext() {
+                return pulledNotifications.get() < notificationCount;
+            }
+
+            @Override
+            public SimpleApnsPushNotification next() {
+                final int pendingNotifications = pulledNotifications.incrementAndGet() - handledNotifications.get();
+                maxPendingNotifications.accumulateAndGet(pendingNotifications, Math::max);
+
+                return new SimpleApnsPushNotification(ApnsClientTest.generateRandomDeviceToken(), TOPIC, PAYLOAD);
+            }
+        };
+
+        try {
+            server.start(PORT).get();
+
+            final long sentNotifications = client.sendNotifications(notifications, responseFuture -> {
+                if (responseFuture.join().isAccepted()) {
+                    acceptedNotifications.incrementAndGet();
+                }
+
+                handledNotifications.incrementAndGet();
+            });
+
+            assertEquals(notificationCount, sentNotifications);
+            assertEquals(notificationCount, handledNotifications.get());
+            assertEquals(notificationCount, acceptedNotifications.get());
+            assertTrue(maxPendingNotifications.get() <= maxConcurrentStreams);
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsFromIteratorAfterClose() throws Exception {
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+        client.close().get();
+
+        final AtomicInteger failedNotifications = new AtomicInteger(0);
+
+        final long sentNotifications = client.sendNotifications(
+                Arrays.asList(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD),
+                        new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)).iterator(),
+                responseFuture -> {
+                    if (responseFuture.isCompletedExceptionally()) {
+                        failedNotifications.incrementAndGet();
+                    }
+                });
+
+        assertEquals(2, sentNotifications);
+        assertEquals(2, failedNotifications.get());
+    }
+
+    @Test
+    void testSendNotificationWithRetries() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final PushNotificationHandlerFactory rejectFirstAttemptsHandlerFactory =
+                sslSession -> (PushNotificationHandler) (headers, payload) -> {
+                    if (attempts.incrementAndGet() < 3) {
+                        throw new RejectedNotificationException(RejectionReason.SERVICE_UNAVAILABLE);
+                    }
+                };
+
+        final MockApnsServer server = this.buildServer(rejectFirstAttemptsHandlerFactory);
+        final TestClientMetricsListener metricsListener = new TestClientMetricsListener();
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setRetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(100))
+                .setMetricsListener(metricsListener)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)).get();
+
+            assertTrue(response.isAccepted());
+            assertEquals(3, attempts.get());
+
+            // Every attempt is written, but the notification should only be reported as sent once
+            metricsListener.waitForNonZeroAcceptedNotifications();
+            assertEquals(1, metricsListener.getSentNotifications().get());
+            assertEquals(1, metricsListener.getAcceptedNotifications().get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationWithRetriesExhausted() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final PushNotificationHandlerFactory rejectAllHandlerFactory =
+                sslSession -> (PushNotificationHandler) (headers, payload) -> {
+                    attempts.incrementAndGet();
+                    throw new RejectedNotificationException(RejectionReason.TOO_MANY_REQUESTS);
+                };
+
+        final MockApnsServer server = this.buildServer(rejectAllHandlerFactory);
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setRetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(100))
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)).get();
+
+            assertFalse(response.isAccepted());
+            assertEquals(Optional.of(ApnsRejectionReason.TOO_MANY_REQUESTS), response.getApnsRejectionReason());
+            assertEquals(3, attempts.get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationWithRetriesAfterConnectionClosed() throws Exception {
+        final String retryTopic = TOPIC + ".retry";
+
+        // Each connection gets its own handler, so the handler that received each attempt tells us which connection
+        // carried that attempt
+        final List<PushNotificationHandler> handlersByAttempt = Collections.synchronizedList(new ArrayList<>());
+
+        final PushNotificationHandlerFactory closeOnFirstAttemptHandlerFactory =
+                sslSession -> new PushNotificationHandler() {
+                    @Override
+                    public void handlePushNotification(final Http2Headers headers, final ByteBuf payload) {
+                        if (retryTopic.contentEquals(headers.get("apns-topic"))) {
+                            handlersByAttempt.add(this);
+
+                            if (handlersByAttempt.size() == 1) {
+                                // Unlike exceptions, errors escape the mock server's handler; the server treats them
+                                // as connection errors and closes the connection with a GOAWAY before replying
+                                throw new Error("Closing connection mid-flight");
+                            }
+                        }
+                    }
+                };
+
+        final MockApnsServer server = this.buildServer(closeOnFirstAttemptHandlerFactory);
+        final TestClientMetricsListener metricsListener = new TestClientMetricsListener();
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setConcurrentConnections(2)
+                .setRetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(100))
+                .setMetricsListener(metricsListener)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            // Open both connections before the notification we care about so the retry has somewhere else to go
+            //noinspection ZeroLengthArrayAllocation
+            CompletableFuture.allOf(
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)),
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD))).get();
+
+            metricsListener.waitForConnectionsAdded(2);
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, retryTopic, PAYLOAD)).get();
+
+            assertTrue(response.isAccepted());
+            assertEquals(2, handlersByAttempt.size());
+            assertNotSame(handlersByAttempt.get(0), handlersByAttempt.get(1),
+                    "Retry should be sent on a different connection than the failed attempt");
+
+            metricsListener.waitForAcceptedNotifications(3);
+            assertEquals(3, metricsListener.getSentNotifications().get());
+            assertEquals(0, metricsListener.getWriteFailures().get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationWithRetriesNonRetryableRejection() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger(0);
+
+        final PushNotificationHandlerFactory rejectAllHandlerFactory =
+                sslSession -> (PushNotificationHandler) (headers, payload) -> {
+                    attempts.incrementAndGet();
+                    throw new RejectedNotificationException(RejectionReason.BAD_DEVICE_TOKEN);
+                };
+
+        final MockApnsServer server = this.buildServer(rejectAllHandlerFactory);
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setRetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(100))
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)).get();
+
+            assertFalse(response.isAccepted());
+            assertEquals(1, attempts.get());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsWithVaryingHeaders() throws Exception {
+        final TestParsingServerHandler parsingServerHandler = new TestParsingServerHandler();
+
+        final MockApnsServer server =
+                this.buildServer(new AcceptAllPushNotificationHandlerFactory(), parsingServerHandler);
+
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+
+        try {
+            server.start(PORT).get();
+
+            // Send each combination twice so we exercise both freshly-built and previously-built headers on the same
+            // connection
+            for (int i = 0; i < 2; i++) {
+                for (final DeliveryPriority priority : DeliveryPriority.values()) {
+                    for (final PushType pushType : new PushType[] { null, PushType.ALERT, PushType.BACKGROUND }) {
+                        final SimpleApnsPushNotification pushNotification = new SimpleApnsPushNotification(
+                                DEVICE_TOKEN, TOPIC, PAYLOAD, Instant.now().plusSeconds(60), priority, pushType,
+                                "collapse-" + i, UUID.randomUUID());
+
+                        final PushNotificationResponse<SimpleApnsPushNotification> response =
+                                client.sendNotification(pushNotification).get();
+
+                        assertTrue(response.isAccepted());
+                        assertEquals(pushNotification.getApnsId(), response.getApnsId());
+
+                        parsingServerHandler.waitForNonZeroAcceptedNotifications();
+
+                        final ApnsPushNotification receivedNotification;
+
+                        synchronized (parsingServerHandler.acceptedNotifications) {
+                            receivedNotification = parsingServerHandler.acceptedNotifications.remove(0);
+                        }
+
+                        assertEquals(TOPIC, receivedNotification.getTopic());
+                        assertEquals(priority, receivedNotification.getPriority());
+                        assertEquals(pushType, receivedNotification.getPushType());
+                        assertEquals(pushNotification.getCollapseId(), receivedNotification.getCollapseId());
+                        assertEquals(pushNotification.getApnsId(), receivedNotification.getApnsId());
+                    }
+                }
+            }
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationWithPooledDirectPayloadBuffers() throws Exception {
+        final TestParsingServerHandler parsingServerHandler = new TestParsingServerHandler();
+
+        final MockApnsServer server =
+                this.buildServer(new AcceptAllPushNotificationHandlerFactory(), parsingServerHandler);
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setUsePooledDirectPayloadBuffers(true)
+                .build();
+
+        // Make sure multi-byte characters survive the trip
+        final String payload = new ApnsPayloadBuilder()
+                .setAlertBody("Pushy \u2764\ufe0f \ud83d\udce8")
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    client.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, payload)).get();
+
+            assertTrue(response.isAccepted());
+
+            parsingServerHandler.waitForNonZeroAcceptedNotifications();
+            assertEquals(payload, parsingServerHandler.acceptedNotifications.get(0).getPayload());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendManyNotificationsWithBlockingInFlightLimit() throws Exception {
+        final int notificationCount = 1000;
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setInFlightNotificationLimit(10, InFlightLimitPolicy.BLOCK)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final List<SimpleApnsPushNotification> pushNotifications = new ArrayList<>();
+
+            for (int i = 0; i < notificationCount; i++) {
+                pushNotifications.add(new SimpleApnsPushNotification(
+                        ApnsClientTest.generateRandomDeviceToken(), TOPIC, ApnsClientTest.generateRandomPayload()));
+            }
+
+            final PushNotificationBatchFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> batchFuture =
+                    client.sendNotifications(pushNotifications);
+
+            batchFuture.get();
+
+            for (final PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> future : batchFuture.getPushNotificationFutures()) {
+                assertTrue(future.get().isAccepted());
+            }
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendManyNotificationsWithDeferringInFlightLimit() throws Exception {
+        final int maxInFlightNotifications = 10;
+        final int notificationCount = 1000;
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+
+        final ApnsClient client = new ApnsClientBuilder()
+                .setApnsServer(HOST, PORT)
+                .setTrustedServerCertificateChain(getClass().getResourceAsStream(CA_CERTIFICATE_FILENAME))
+                .setSigningKey(this.signingKey)
+                .setApnsClientResources(CLIENT_RESOURCES)
+                .setInFlightNotificationLimit(maxInFlightNotifications, InFlightLimitPolicy.DEFER)
+                .build();
+
+        try {
+            server.start(PORT).get();
+
+            final List<SimpleApnsPushNotification> pushNotifications = new ArrayList<>();
+
+            for (int i = 0; i < notificationCount; i++) {
+                pushNotifications.add(new SimpleApnsPushNotification(
+                        ApnsClientTest.generateRandomDeviceToken(), TOPIC, ApnsClientTest.generateRandomPayload()));
+            }
+
+            final PushNotificationBatchFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> batchFuture =
+                    client.sendNotifications(pushNotifications);
+
+            batchFuture.get();
+
+            int acceptedNotifications = 0;
+
+            for (final PushNotificationFuture<SimpleApnsPushNotification, PushNotificationResponse<SimpleApnsPushNotification>> future : batchFuture.getPushNotificationFutures()) {
+                if (future.isCompletedExceptionally()) {
+                    // Notifications that found both the in-flight and deferred notification limits full should fail
+                    final ExecutionException executionException = assertThrows(ExecutionException.class, future::get);
+                    assertTrue(executionException.getCause() instanceof InFlightLimitExceededException);
+                } else {
+                    assertTrue(future.get().isAccepted());
+                    acceptedNotifications += 1;
+                }
+            }
+
+            // At the very least, everything that fit in the in-flight and deferred limits should have been sent
+            assertTrue(acceptedNotifications >= maxInFlightNotifications * 2);
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void testSendPreEncodedNotificationsWithSharedPayload(final boolean useTokenAuthentication) throws Exception {
+        final int notificationCount = 100;
+
+        final TestParsingServerHandler parsingServerHandler = new TestParsingServerHandler();
+
+        final MockApnsServer server =
+                this.buildServer(new AcceptAllPushNotificationHandlerFactory(), parsingServerHandler);
+
+        final ApnsClient client = useTokenAuthentication ?
+                this.buildTokenAuthenticationClient() : this.buildTlsAuthenticationClient();
+
+        final ByteBuf encodedPayload = Unpooled.copiedBuffer(PAYLOAD, StandardCharsets.UTF_8);
+
+        try {
+            server.start(PORT).get();
+
+            final List<CompletableFuture<PushNotificationResponse<SimplePreEncodedApnsPushNotification>>> futures =
+                    new ArrayList<>();
+
+            for (int i = 0; i < notificationCount; i++) {
+                futures.add(client.sendNotification(new SimplePreEncodedApnsPushNotification(
+                        ApnsClientTest.generateRandomDeviceToken(), TOPIC, encodedPayload)));
+            }
+
+            for (final CompletableFuture<PushNotificationResponse<SimplePreEncodedApnsPushNotification>> future : futures) {
+                assertTrue(future.get().isAccepted());
+            }
+
+            parsingServerHandler.waitForNonZeroAcceptedNotifications();
+            assertEquals(PAYLOAD, parsingServerHandler.acceptedNotifications.get(0).getPayload());
+
+            assertEquals(1, encodedPayload.refCnt(), "Clients must release their references to shared payloads.");
+            assertEquals(PAYLOAD.getBytes(StandardCharsets.UTF_8).length, encodedPayload.readableBytes(),
+                    "Clients must not modify shared payloads.");
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+
+            encodedPayload.release();
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = { true, false })
     void testSendManyNotificationsWithListeners(final boolean useTokenAuthentication) throws Exception {
@@ -560,6 +1278,7 @@ public class ApnsClientTest extends AbstractClientServerTest {
 
             assertFalse(response.isAccepted());
             assertEquals(Optional.of("Unregistered"), response.getRejectionReason());
+            assertEquals(Optional.of(ApnsRejectionReason.UNREGISTERED), response.getApnsRejectionReason());
             assertEquals(expiration.toEpochMilli(), response.getTokenInvalidationTimestamp().map(Instant::toEpochMilli).orElse(0L));
         } finally {
             client.close().get();
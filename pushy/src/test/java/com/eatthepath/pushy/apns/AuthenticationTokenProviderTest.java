@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.auth.ApnsSigningKey;
+import com.eatthepath.pushy.apns.auth.ApnsVerificationKey;
+import com.eatthepath.pushy.apns.auth.AuthenticationToken;
+import com.eatthepath.pushy.apns.auth.KeyPairUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+public class AuthenticationTokenProviderTest {
+
+    private ApnsSigningKey signingKey;
+    private ApnsVerificationKey verificationKey;
+
+    private ScheduledExecutorService executor;
+
+    private static final String KEY_ID = "key-id";
+    private static final String TEAM_ID = "team-id";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final KeyPair keyPair = KeyPairUtil.generateKeyPair();
+
+        this.signingKey = new ApnsSigningKey(KEY_ID, TEAM_ID, (ECPrivateKey) keyPair.getPrivate());
+        this.verificationKey = new ApnsVerificationKey(KEY_ID, TEAM_ID, (ECPublicKey) keyPair.getPublic());
+
+        this.executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void testGetAuthenticationToken() throws Exception {
+        final AuthenticationTokenProvider provider =
+                new AuthenticationTokenProvider(this.signingKey, Duration.ofMinutes(50), this.executor);
+
+        try {
+            final AuthenticationToken authenticationToken = provider.getAuthenticationToken();
+
+            assertNotNull(authenticationToken);
+            assertTrue(authenticationToken.verifySignature(this.verificationKey));
+
+            assertSame(authenticationToken, provider.getAuthenticationToken(),
+                    "Providers should return the same token until it expires.");
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    void testRefreshAuthenticationToken() throws Exception {
+        final AuthenticationTokenProvider provider =
+                new AuthenticationTokenProvider(this.signingKey, Duration.ofMillis(10), this.executor);
+
+        try {
+            final AuthenticationToken initialToken = provider.getAuthenticationToken();
+
+            while (provider.getAuthenticationToken() == initialToken) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(provider.getAuthenticationToken().verifySignature(this.verificationKey));
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    void testGetRefreshDelayMillis() {
+        final Duration tokenExpiration = Duration.ofMinutes(50);
+
+        for (int i = 0; i < 1000; i++) {
+            final long refreshDelayMillis = AuthenticationTokenProvider.getRefreshDelayMillis(tokenExpiration);
+
+            assertTrue(refreshDelayMillis <= tokenExpiration.toMillis());
+            assertTrue(refreshDelayMillis >= Duration.ofMinutes(45).toMillis());
+        }
+    }
+
+    @Test
+    void testHandleExpiredTokenRecentlyIssued() {
+        final AuthenticationTokenProvider provider =
+                new AuthenticationTokenProvider(this.signingKey, Duration.ofMinutes(50), this.executor);
+
+        try {
+            final AuthenticationToken authenticationToken = provider.getAuthenticationToken();
+            provider.handleExpiredToken();
+
+            assertSame(authenticationToken, provider.getAuthenticationToken(),
+                    "Providers should not replace recently-issued tokens in response to expiration reports.");
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    void testClose() throws Exception {
+        final AuthenticationTokenProvider provider =
+                new AuthenticationTokenProvider(this.signingKey, Duration.ofMillis(10), this.executor);
+
+        provider.close();
+
+        final AuthenticationToken authenticationToken = provider.getAuthenticationToken();
+        Thread.sleep(100);
+
+        assertSame(authenticationToken, provider.getAuthenticationToken(),
+                "Closed providers should not refresh their tokens.");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.server.AcceptAllPushNotificationHandlerFactory;
+import com.eatthepath.pushy.apns.server.MockApnsServer;
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockingApnsClientTest extends AbstractClientServerTest {
+
+    @Test
+    void testBlockingApnsClientBadMaxPendingNotifications() throws Exception {
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new BlockingApnsClient(client, 0));
+        } finally {
+            client.close().get();
+        }
+    }
+
+    @Test
+    void testSendNotification() throws Exception {
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+        final BlockingApnsClient blockingClient = new BlockingApnsClient(client, 4);
+
+        try {
+            server.start(PORT).get();
+
+            final SimpleApnsPushNotification pushNotification =
+                    new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD);
+
+            final PushNotificationResponse<SimpleApnsPushNotification> response =
+                    blockingClient.sendNotification(pushNotification);
+
+            assertSame(pushNotification, response.getPushNotification());
+            assertTrue(response.isAccepted());
+
+            assertTrue(blockingClient.sendNotification(pushNotification, 10, TimeUnit.SECONDS).isAccepted());
+            assertEquals(4, blockingClient.getAvailablePermits());
+        } finally {
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationFailure() throws Exception {
+        // No server, so every attempt to connect will fail
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+        final BlockingApnsClient blockingClient = new BlockingApnsClient(client, 4);
+
+        try {
+            assertThrows(ExecutionException.class, () ->
+                    blockingClient.sendNotification(new SimpleApnsPushNotification(DEVICE_TOKEN, TOPIC, PAYLOAD)));
+
+            assertEquals(4, blockingClient.getAvailablePermits());
+        } finally {
+            client.close().get();
+        }
+    }
+
+    @Test
+    void testSendNotificationsFromManyThreads() throws Exception {
+        final int threadCount = 16;
+        final int notificationsPerThread = 50;
+        final int maxPendingNotifications = 4;
+
+        final MockApnsServer server = this.buildServer(new AcceptAllPushNotificationHandlerFactory());
+        final ApnsClient client = this.buildTokenAuthenticationClient();
+        final BlockingApnsClient blockingClient = new BlockingApnsClient(client, maxPendingNotifications);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            server.start(PORT).get();
+
+            final List<Future<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(() -> {
+                    int acceptedNotifications = 0;
+
+                    for (int j = 0; j < notificationsPerThread; j++) {
+                        if (blockingClient.sendNotification(new SimpleApnsPushNotification(generateRandomDeviceToken(), TOPIC, PAYLOAD)).isAccepted()) {
+                            acceptedNotifications += 1;
+                        }
+
+                        assertTrue(blockingClient.getAvailablePermits() <= maxPendingNotifications);
+                    }
+
+                    return acceptedNotifications;
+                }));
+            }
+
+            for (final Future<Integer> future : futures) {
+                assertEquals(notificationsPerThread, future.get());
+            }
+
+            assertEquals(maxPendingNotifications, blockingClient.getAvailablePermits());
+        } finally {
+            executorService.shutdownNow();
+            client.close().get();
+            server.shutdown().get();
+        }
+    }
+}
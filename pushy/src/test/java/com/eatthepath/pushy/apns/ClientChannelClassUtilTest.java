@@ -22,6 +22,8 @@
 
 package com.eatthepath.pushy.apns;
 
+import com.eatthepath.pushy.apns.util.EventLoopGroupUtil;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
@@ -36,6 +38,7 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class ClientChannelClassUtilTest {
@@ -125,4 +128,16 @@ public class ClientChannelClassUtilTest {
             epollEventLoopGroup.shutdownGracefully();
         }
     }
+
+    @Test
+    void testGetChannelClassesForBestAvailableTransport() {
+        final EventLoopGroup eventLoopGroup = EventLoopGroupUtil.newEventLoopGroup(1);
+
+        try {
+            assertNotNull(ClientChannelClassUtil.getSocketChannelClass(eventLoopGroup));
+            assertNotNull(ClientChannelClassUtil.getDatagramChannelClass(eventLoopGroup));
+        } finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
 }
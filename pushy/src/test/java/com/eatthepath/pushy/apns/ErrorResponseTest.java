@@ -22,15 +22,20 @@
 
 package com.eatthepath.pushy.apns;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ErrorResponseTest {
 
@@ -53,6 +58,13 @@ class ErrorResponseTest {
             assertNull(reasonOnlyError.getTimestamp());
         }
 
+        {
+            final ErrorResponse knownReasonError =
+                    ErrorResponse.fromMap(Collections.singletonMap("reason", "ExpiredProviderToken"));
+
+            assertEquals(ApnsRejectionReason.EXPIRED_PROVIDER_TOKEN, knownReasonError.getRejectionReason());
+        }
+
         {
             final String reason = "Badness";
             final Instant timestamp = Instant.now();
@@ -78,4 +90,92 @@ class ErrorResponseTest {
             assertNull(errorResponse.getTimestamp());
         }
     }
+
+    @Test
+    void fromByteBuf() throws ParseException {
+        {
+            final ErrorResponse emptyError = fromString("{}");
+
+            assertNull(emptyError.getReason());
+            assertNull(emptyError.getTimestamp());
+        }
+
+        {
+            final ErrorResponse reasonOnlyError = fromString("{\"reason\":\"BadDeviceToken\"}");
+
+            assertEquals("BadDeviceToken", reasonOnlyError.getReason());
+            assertEquals(ApnsRejectionReason.BAD_DEVICE_TOKEN, reasonOnlyError.getRejectionReason());
+            assertNull(reasonOnlyError.getTimestamp());
+        }
+
+        {
+            final ErrorResponse errorResponse =
+                    fromString(" {\"reason\" : \"Unregistered\", \"timestamp\": 1234567890123 }\n");
+
+            assertEquals("Unregistered", errorResponse.getReason());
+            assertEquals(Instant.ofEpochMilli(1234567890123L), errorResponse.getTimestamp());
+        }
+
+        {
+            final ErrorResponse unknownReasonError = fromString("{\"reason\":\"Badness \u2603\"}");
+            assertEquals("Badness \u2603", unknownReasonError.getReason());
+            assertNull(unknownReasonError.getRejectionReason());
+        }
+
+        {
+            final ErrorResponse escapedReasonError = fromString("{\"reason\":\"Bad\\\"ness\\u0021\"}");
+            assertEquals("Bad\"ness!", escapedReasonError.getReason());
+        }
+
+        {
+            final ErrorResponse extraFieldsError = fromString("{\"extra\":{\"nested\":[1, \"}\", true, null]}," +
+                    "\"reason\":\"BadTopic\",\"other\":-1.5e3,\"timestamp\":17}");
+
+            assertEquals("BadTopic", extraFieldsError.getReason());
+            assertEquals(Instant.ofEpochMilli(17), extraFieldsError.getTimestamp());
+        }
+
+        {
+            final ErrorResponse wrongTypesError = fromString("{\"reason\":17,\"timestamp\":false}");
+
+            assertNull(wrongTypesError.getReason());
+            assertNull(wrongTypesError.getTimestamp());
+        }
+
+        {
+            final ErrorResponse fractionalTimestampError = fromString("{\"timestamp\":1.5}");
+            assertNull(fractionalTimestampError.getTimestamp());
+        }
+    }
+
+    @Test
+    void fromByteBufPreservesIndices() throws ParseException {
+        final ByteBuf data = Unpooled.copiedBuffer("{\"reason\":\"BadTopic\"}", StandardCharsets.UTF_8);
+
+        try {
+            final int readableBytes = data.readableBytes();
+
+            assertEquals("BadTopic", ErrorResponse.fromByteBuf(data).getReason());
+            assertEquals(readableBytes, data.readableBytes());
+        } finally {
+            data.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "[]", "{", "{\"reason\"}", "{\"reason\":}", "{\"reason\":\"BadTopic\"", "{} {}",
+            "{\"reason\":tru}", "{\"reason\":\"BadTopic\" \"timestamp\":1}" })
+    void fromByteBufMalformed(final String json) {
+        assertThrows(ParseException.class, () -> fromString(json));
+    }
+
+    private static ErrorResponse fromString(final String json) throws ParseException {
+        final ByteBuf data = Unpooled.copiedBuffer(json, StandardCharsets.UTF_8);
+
+        try {
+            return ErrorResponse.fromByteBuf(data);
+        } finally {
+            data.release();
+        }
+    }
 }
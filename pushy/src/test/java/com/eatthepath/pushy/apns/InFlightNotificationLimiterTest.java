@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import com.eatthepath.pushy.apns.util.concurrent.PushNotificationFuture;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+public class InFlightNotificationLimiterTest {
+
+    private static final SimpleApnsPushNotification PUSH_NOTIFICATION =
+            new SimpleApnsPushNotification("example-token", "com.example.topic", "{}");
+
+    @Test
+    void testInFlightNotificationLimiterIllegalLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new InFlightNotificationLimiter(0, InFlightLimitPolicy.FAIL));
+    }
+
+    @Test
+    void testAcquireFail() {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.FAIL);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        assertTrue(limiter.acquire(firstFuture, () -> fail("Admitted notifications should not be deferred.")));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        assertFalse(limiter.acquire(secondFuture, () -> fail("Rejected notifications should not be deferred.")));
+
+        final ExecutionException executionException = assertThrows(ExecutionException.class, secondFuture::get);
+        assertTrue(executionException.getCause() instanceof InFlightLimitExceededException);
+
+        firstFuture.complete(null);
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testAcquireDefer() {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.DEFER);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final AtomicInteger deferredSends = new AtomicInteger(0);
+
+        assertTrue(limiter.acquire(firstFuture, deferredSends::incrementAndGet));
+        assertFalse(limiter.acquire(secondFuture, deferredSends::incrementAndGet));
+
+        assertFalse(secondFuture.isDone());
+        assertEquals(0, deferredSends.get());
+
+        firstFuture.complete(null);
+
+        assertEquals(1, deferredSends.get(), "Deferred notifications should be sent when a permit becomes available.");
+        assertEquals(0, limiter.getAvailablePermits());
+
+        secondFuture.complete(null);
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testAcquireDeferBounded() {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.DEFER);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> thirdFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final AtomicInteger deferredSends = new AtomicInteger(0);
+
+        assertTrue(limiter.acquire(firstFuture, deferredSends::incrementAndGet));
+        assertFalse(limiter.acquire(secondFuture, deferredSends::incrementAndGet));
+        assertFalse(limiter.acquire(thirdFuture, () -> fail("Notifications beyond the deferral bound should not be deferred.")));
+
+        assertFalse(secondFuture.isDone());
+
+        final ExecutionException executionException = assertThrows(ExecutionException.class, thirdFuture::get);
+        assertTrue(executionException.getCause() instanceof InFlightLimitExceededException);
+
+        // Once the deferred notification has been sent, there should be room to defer another one
+        firstFuture.complete(null);
+        assertEquals(1, deferredSends.get());
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> fourthFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        assertFalse(limiter.acquire(fourthFuture, deferredSends::incrementAndGet));
+        assertFalse(fourthFuture.isDone());
+
+        secondFuture.complete(null);
+        assertEquals(2, deferredSends.get());
+    }
+
+    @Test
+    void testFailDeferredNotifications() {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.DEFER);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final AtomicBoolean deferredSendAttempted = new AtomicBoolean(false);
+
+        assertTrue(limiter.acquire(firstFuture, () -> deferredSendAttempted.set(true)));
+        assertFalse(limiter.acquire(secondFuture, () -> deferredSendAttempted.set(true)));
+
+        limiter.failDeferredNotifications(new IllegalStateException());
+        assertTrue(secondFuture.isCompletedExceptionally());
+
+        firstFuture.complete(null);
+
+        assertFalse(deferredSendAttempted.get());
+        assertEquals(1, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testAcquireBlock() throws Exception {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.BLOCK);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        assertTrue(limiter.acquire(firstFuture, () -> fail("Admitted notifications should not be deferred.")));
+
+        final CountDownLatch acquiredLatch = new CountDownLatch(1);
+
+        final Thread blockedThread = new Thread(() -> {
+            if (limiter.acquire(secondFuture, () -> fail("Blocked notifications should not be deferred."))) {
+                acquiredLatch.countDown();
+            }
+        });
+
+        blockedThread.start();
+
+        assertFalse(secondFuture.isDone());
+        firstFuture.complete(null);
+
+        acquiredLatch.await();
+        blockedThread.join();
+
+        assertEquals(0, limiter.getAvailablePermits());
+    }
+
+    @Test
+    void testAcquireBlockFromEventLoopThread() throws Exception {
+        final InFlightNotificationLimiter limiter = new InFlightNotificationLimiter(1, InFlightLimitPolicy.BLOCK);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> firstFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        final PushNotificationFuture<SimpleApnsPushNotification, Void> secondFuture =
+                new PushNotificationFuture<>(PUSH_NOTIFICATION);
+
+        assertTrue(limiter.acquire(firstFuture, () -> fail("Admitted notifications should not be deferred.")));
+
+        final AtomicInteger deferredSends = new AtomicInteger(0);
+        final AtomicBoolean acquired = new AtomicBoolean(true);
+
+        // Blocking here would deadlock a real client, since this is the kind of thread that returns permits
+        final Thread eventLoopThread = new FastThreadLocalThread(() ->
+                acquired.set(limiter.acquire(secondFuture, deferredSends::incrementAndGet)));
+
+        eventLoopThread.start();
+        eventLoopThread.join();
+
+        assertFalse(acquired.get());
+        assertFalse(secondFuture.isDone());
+        assertEquals(0, deferredSends.get());
+
+        firstFuture.complete(null);
+
+        assertEquals(1, deferredSends.get());
+        assertEquals(0, limiter.getAvailablePermits());
+    }
+}
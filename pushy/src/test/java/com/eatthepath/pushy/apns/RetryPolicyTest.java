@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    private static final SimpleApnsPushNotification PUSH_NOTIFICATION =
+            new SimpleApnsPushNotification("device-token", "topic", "{}");
+
+    @Test
+    void testRetryPolicyIllegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, Duration.ofMillis(10), Duration.ofMillis(100)));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(3, Duration.ZERO, Duration.ofMillis(100)));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(3, Duration.ofMillis(100), Duration.ofMillis(10)));
+        assertThrows(NullPointerException.class, () -> new RetryPolicy(3, null, Duration.ofMillis(100)));
+        assertThrows(NullPointerException.class, () -> new RetryPolicy(3, Duration.ofMillis(10), null));
+    }
+
+    @Test
+    void testGetNominalRetryDelayNanos() {
+        final RetryPolicy retryPolicy = new RetryPolicy(8, Duration.ofMillis(10), Duration.ofMillis(50));
+
+        assertEquals(Duration.ofMillis(10).toNanos(), retryPolicy.getNominalRetryDelayNanos(1));
+        assertEquals(Duration.ofMillis(20).toNanos(), retryPolicy.getNominalRetryDelayNanos(2));
+        assertEquals(Duration.ofMillis(40).toNanos(), retryPolicy.getNominalRetryDelayNanos(3));
+        assertEquals(Duration.ofMillis(50).toNanos(), retryPolicy.getNominalRetryDelayNanos(4));
+        assertEquals(Duration.ofMillis(50).toNanos(), retryPolicy.getNominalRetryDelayNanos(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testGetRetryDelayNanos() {
+        final RetryPolicy retryPolicy = new RetryPolicy(8, Duration.ofMillis(10), Duration.ofMillis(50));
+
+        for (int retry = 1; retry <= 8; retry++) {
+            final long nominalDelayNanos = retryPolicy.getNominalRetryDelayNanos(retry);
+
+            for (int i = 0; i < 100; i++) {
+                final long delayNanos = retryPolicy.getRetryDelayNanos(retry);
+
+                assertTrue(delayNanos >= nominalDelayNanos / 2);
+                assertTrue(delayNanos <= nominalDelayNanos);
+            }
+        }
+    }
+
+    @Test
+    void testIsRetryableAcceptedResponse() {
+        assertFalse(RetryPolicy.isRetryable(
+                new SimplePushNotificationResponse<>(PUSH_NOTIFICATION, true, null, null, 200, null, null, null)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ApnsRejectionReason.class)
+    void testIsRetryableRejectedResponse(final ApnsRejectionReason rejectionReason) {
+        final boolean expectRetryable = rejectionReason == ApnsRejectionReason.TOO_MANY_REQUESTS ||
+                rejectionReason == ApnsRejectionReason.INTERNAL_SERVER_ERROR ||
+                rejectionReason == ApnsRejectionReason.SERVICE_UNAVAILABLE ||
+                rejectionReason == ApnsRejectionReason.SHUTDOWN;
+
+        assertEquals(expectRetryable, RetryPolicy.isRetryable(
+                new SimplePushNotificationResponse<>(PUSH_NOTIFICATION, false, null, null, 400,
+                        rejectionReason.getReasonText(), rejectionReason, null)));
+    }
+
+    @Test
+    void testIsRetryableThrowable() {
+        assertTrue(RetryPolicy.isRetryable(new IOException()));
+        assertTrue(RetryPolicy.isRetryable(new CompletionException(new IOException())));
+        assertTrue(RetryPolicy.isRetryable(Http2Exception.connectionError(Http2Error.INTERNAL_ERROR, "Test")));
+
+        assertFalse(RetryPolicy.isRetryable(new SSLHandshakeException("Test")));
+        assertFalse(RetryPolicy.isRetryable(new IllegalArgumentException()));
+        assertFalse(RetryPolicy.isRetryable(new CompletionException(new IllegalStateException())));
+    }
+}
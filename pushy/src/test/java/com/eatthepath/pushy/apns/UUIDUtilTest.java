@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns;
+
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UUIDUtilTest {
+
+    @Test
+    void testFromCharSequence() {
+        for (int i = 0; i < 100; i++) {
+            final UUID uuid = UUID.randomUUID();
+
+            assertEquals(uuid, UUIDUtil.fromCharSequence(new AsciiString(uuid.toString())));
+            assertEquals(uuid, UUIDUtil.fromCharSequence(new AsciiString(uuid.toString().toUpperCase())));
+        }
+
+        assertEquals(new UUID(-1, -1), UUIDUtil.fromCharSequence("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+    }
+
+    @Test
+    void testFromCharSequenceNonCanonical() {
+        assertEquals(UUID.fromString("1-2-3-4-5"), UUIDUtil.fromCharSequence("1-2-3-4-5"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "not a uuid", "123e4567-e89b-12d3-a456-42661417400g", "123e4567xe89b-12d3-a456-426614174000" })
+    void testFromCharSequenceIllegalArgument(final String uuidString) {
+        assertThrows(IllegalArgumentException.class, () -> UUIDUtil.fromCharSequence(uuidString));
+    }
+}
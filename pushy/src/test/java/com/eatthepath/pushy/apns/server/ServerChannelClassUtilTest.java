@@ -22,6 +22,8 @@
 
 package com.eatthepath.pushy.apns.server;
 
+import com.eatthepath.pushy.apns.util.EventLoopGroupUtil;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollServerSocketChannel;
@@ -79,4 +81,15 @@ public class ServerChannelClassUtilTest {
             epollEventLoopGroup.shutdownGracefully();
         }
     }
+
+    @Test
+    void testGetServerSocketChannelClassForBestAvailableTransport() {
+        final EventLoopGroup eventLoopGroup = EventLoopGroupUtil.newEventLoopGroup(1);
+
+        try {
+            assertNotNull(ServerChannelClassUtil.getServerSocketChannelClass(eventLoopGroup));
+        } finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
 }
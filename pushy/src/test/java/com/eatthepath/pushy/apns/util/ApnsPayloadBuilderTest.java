@@ -23,6 +23,8 @@
 package com.eatthepath.pushy.apns.util;
 
 import com.eatthepath.json.JsonParser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -30,9 +32,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -372,6 +376,32 @@ class ApnsPayloadBuilderTest {
                 arguments(false, 0));
     }
 
+    @Test
+    void testBuildWithFunctionRetainsCriticalAlertSound() {
+        final List<Map<String, Object>> payloadMaps = new ArrayList<>();
+
+        this.builder.setSound("first.aiff", true, 0.5);
+        this.builder.build(payloadMap -> {
+            payloadMaps.add(payloadMap);
+            return "";
+        });
+
+        this.builder.setSound("second.aiff", false, 1.0);
+        this.builder.build();
+        this.builder.reset();
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> aps = (Map<String, Object>) payloadMaps.get(0).get("aps");
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> soundDictionary = (Map<String, Object>) aps.get("sound");
+
+        // Maps handed to callers must not change when the builder is reused
+        assertEquals("first.aiff", soundDictionary.get("name"));
+        assertEquals(1, soundDictionary.get("critical"));
+        assertEquals(0.5, soundDictionary.get("volume"));
+    }
+
     @Test
     void testSetSoundForCriticalAlertNullFilename() {
         assertThrows(NullPointerException.class, () -> this.builder.setSound(null, true, 0.5));
@@ -724,6 +754,173 @@ class ApnsPayloadBuilderTest {
         assertEquals(subMap, serializedContentState.get(keyForMapValue));
     }
 
+    @Test
+    void testBuildToByteBuf() {
+        this.builder.setAlertBody("Caf\u00e9 \ud83c\udf89");
+        this.builder.setBadgeNumber(4);
+
+        final ByteBuf buffer = Unpooled.buffer();
+
+        try {
+            final int bytesWritten = this.builder.build(buffer);
+
+            assertEquals(buffer.readableBytes(), bytesWritten);
+            assertEquals(this.builder.build(), buffer.toString(StandardCharsets.UTF_8));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    void testReset() {
+        final String emptyPayload = new ApnsPayloadBuilder().build();
+
+        this.builder.setAlertBody("Body");
+        this.builder.setLocalizedAlertTitle("title-key", "arg");
+        this.builder.setShowActionButton(false);
+        this.builder.setBadgeNumber(7);
+        this.builder.setSound("alarm.aiff", true, 0.5);
+        this.builder.setContentAvailable(true);
+        this.builder.setMutableContent(true);
+        this.builder.setThreadId("thread");
+        this.builder.setUrlArguments("a", "b");
+        this.builder.setInterruptionLevel(InterruptionLevel.TIME_SENSITIVE);
+        this.builder.setEvent(LiveActivityEvent.UPDATE);
+        this.builder.setTimestamp(Instant.now());
+        this.builder.addCustomProperty("custom", "value");
+
+        assertNotEquals(emptyPayload, this.builder.build());
+        assertSame(this.builder, this.builder.reset());
+        assertEquals(emptyPayload, this.builder.build());
+    }
+
+    @Test
+    void testBuildRepeatedlyWithChanges() {
+        this.builder.setAlertBody("Body");
+        this.builder.setBadgeNumber(1);
+        this.builder.addCustomProperty("custom", "value");
+
+        final String firstPayload = this.builder.build();
+        assertEquals(firstPayload, this.builder.build());
+
+        this.builder.setBadgeNumber(null);
+        this.builder.setSound("alarm.aiff", true, 0.5);
+        this.builder.setSound("other.aiff", false, 1.0);
+
+        final Map<String, Object> aps = this.extractApsObjectFromPayloadString(this.builder.build());
+
+        assertFalse(aps.containsKey("badge"));
+
+        @SuppressWarnings("unchecked") final Map<String, Object> sound = (Map<String, Object>) aps.get("sound");
+        assertEquals("other.aiff", sound.get("name"));
+        assertEquals(0L, sound.get("critical"));
+
+        this.builder.setSound(null).setBadgeNumber(1);
+        assertEquals(firstPayload, this.builder.build());
+    }
+
+    @Test
+    void testGetThreadLocalInstance() throws InterruptedException {
+        final ApnsPayloadBuilder threadLocalBuilder = ApnsPayloadBuilder.getThreadLocalInstance();
+        threadLocalBuilder.setAlertBody("Body");
+
+        assertSame(threadLocalBuilder, ApnsPayloadBuilder.getThreadLocalInstance());
+        assertEquals(new ApnsPayloadBuilder().build(), threadLocalBuilder.build(),
+                "Thread-local builders must be reset before they're returned");
+
+        final ApnsPayloadBuilder[] otherThreadBuilder = new ApnsPayloadBuilder[1];
+        final Thread thread = new Thread(() -> otherThreadBuilder[0] = ApnsPayloadBuilder.getThreadLocalInstance());
+        thread.start();
+        thread.join();
+
+        assertNotNull(otherThreadBuilder[0]);
+        assertNotSame(threadLocalBuilder, otherThreadBuilder[0]);
+    }
+
+    @Test
+    void testGetPayloadSize() {
+        this.builder.setAlertBody("Caf\u00e9 \ud83c\udf89 \u65e5\u672c \"quoted\" \u0001");
+        this.builder.setAlertTitle("Title");
+        this.builder.setBadgeNumber(12);
+        this.builder.addCustomProperty("custom", Arrays.asList(1, "two"));
+
+        assertEquals(this.builder.build().getBytes(StandardCharsets.UTF_8).length, this.builder.getPayloadSize());
+    }
+
+    @ParameterizedTest
+    @MethodSource("argumentsForTruncateAlertBodyToFit")
+    void testTruncateAlertBodyToFit(final String truncationSuffix, final boolean preferStringRepresentationForAlerts) {
+        final StringBuilder alertBodyBuilder = new StringBuilder();
+
+        while (alertBodyBuilder.length() < 8192) {
+            alertBodyBuilder.append("Caf\u00e9 \ud83c\udf89 \u65e5\u672c \"/\n ");
+        }
+
+        final String alertBody = alertBodyBuilder.toString();
+
+        this.builder.setPreferStringRepresentationForAlerts(preferStringRepresentationForAlerts);
+        this.builder.addCustomProperty("custom", "value");
+
+        for (int maximumPayloadSize = 4096; maximumPayloadSize < 4112; maximumPayloadSize++) {
+            this.builder.setAlertBody(alertBody);
+            this.builder.truncateAlertBodyToFit(maximumPayloadSize, truncationSuffix);
+
+            final String truncatedPayload = this.builder.build();
+            final String truncatedAlertBody = this.extractAlertBodyFromPayloadString(truncatedPayload);
+
+            assertTrue(truncatedPayload.getBytes(StandardCharsets.UTF_8).length <= maximumPayloadSize);
+            assertTrue(truncatedAlertBody.endsWith(truncationSuffix));
+
+            final String keptAlertBody =
+                    truncatedAlertBody.substring(0, truncatedAlertBody.length() - truncationSuffix.length());
+
+            assertTrue(alertBody.startsWith(keptAlertBody));
+            assertFalse(Character.isHighSurrogate(keptAlertBody.charAt(keptAlertBody.length() - 1)));
+
+            // Adding the next code point would have made the payload too large
+            final int nextCodePointEnd = alertBody.offsetByCodePoints(keptAlertBody.length(), 1);
+            this.builder.setAlertBody(alertBody.substring(0, nextCodePointEnd) + truncationSuffix);
+
+            assertTrue(this.builder.getPayloadSize() > maximumPayloadSize);
+        }
+    }
+
+    private static Stream<Arguments> argumentsForTruncateAlertBodyToFit() {
+        return Stream.of(
+                arguments("", false),
+                arguments("\u2026", false),
+                arguments("\u2026", true));
+    }
+
+    @Test
+    void testTruncateAlertBodyToFitAlreadyFits() {
+        this.builder.setAlertBody("Short");
+        this.builder.truncateAlertBodyToFit(ApnsPayloadBuilder.DEFAULT_MAXIMUM_PAYLOAD_SIZE, "\u2026");
+
+        assertEquals("Short", this.extractAlertBodyFromPayloadString(this.builder.build()));
+
+        this.builder.setAlertBody(null);
+        this.builder.truncateAlertBodyToFit(ApnsPayloadBuilder.DEFAULT_MAXIMUM_PAYLOAD_SIZE);
+
+        assertNull(this.extractApsObjectFromPayloadString(this.builder.build()).get("alert"));
+    }
+
+    @Test
+    void testTruncateAlertBodyToFitImpossible() {
+        this.builder.setAlertBody("Body");
+        this.builder.addCustomProperty("custom", "value");
+
+        assertThrows(IllegalStateException.class, () -> this.builder.truncateAlertBodyToFit(16));
+        assertEquals("Body", this.extractAlertBodyFromPayloadString(this.builder.build()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractAlertBodyFromPayloadString(final String payloadString) {
+        final Object alert = this.extractApsObjectFromPayloadString(payloadString).get("alert");
+
+        return alert instanceof String ? (String) alert : (String) ((Map<String, Object>) alert).get("body");
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Object> extractApsObjectFromPayloadString(final String payloadString) {
         final Map<String, Object> payload;
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeviceTokenTest {
+
+    @Test
+    void testFromHexString() {
+        final DeviceToken deviceToken = DeviceToken.fromHexString("00ff7Fa1");
+
+        assertArrayEquals(new byte[] { 0x00, (byte) 0xff, 0x7f, (byte) 0xa1 }, deviceToken.getBytes());
+        assertEquals("00ff7fa1", deviceToken.toString());
+        assertEquals("/3/device/00ff7fa1", deviceToken.getPath().toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "abc", "<abcd>", "abcg", "ab cd" })
+    void testFromHexStringIllegalArgument(final String tokenString) {
+        assertThrows(IllegalArgumentException.class, () -> DeviceToken.fromHexString(tokenString));
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    @Test
+    void testFromNullHexString() {
+        assertThrows(NullPointerException.class, () -> DeviceToken.fromHexString(null));
+    }
+
+    @Test
+    void testFromBytes() {
+        final byte[] tokenBytes = new byte[] { 0x12, 0x34 };
+        final DeviceToken deviceToken = DeviceToken.fromBytes(tokenBytes);
+
+        // Device tokens must not be affected by changes to the original array
+        tokenBytes[0] = 0;
+
+        assertEquals("1234", deviceToken.toString());
+        assertThrows(IllegalArgumentException.class, () -> DeviceToken.fromBytes(new byte[0]));
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        final DeviceToken deviceToken = DeviceToken.fromHexString("abcdef");
+        final DeviceToken equalDeviceToken = DeviceToken.fromBytes(new byte[] { (byte) 0xab, (byte) 0xcd, (byte) 0xef });
+
+        assertEquals(deviceToken, equalDeviceToken);
+        assertEquals(deviceToken.hashCode(), equalDeviceToken.hashCode());
+        assertNotEquals(deviceToken, DeviceToken.fromHexString("abcdee"));
+    }
+}
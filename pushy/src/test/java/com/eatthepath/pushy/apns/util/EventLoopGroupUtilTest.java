@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventLoopGroupUtilTest {
+
+    @Test
+    void testNewEventLoopGroup() {
+        final EventLoopGroup eventLoopGroup = EventLoopGroupUtil.newEventLoopGroup(3);
+
+        try {
+            int executorCount = 0;
+
+            for (final EventExecutor ignored : eventLoopGroup) {
+                executorCount += 1;
+            }
+
+            assertEquals(3, executorCount);
+
+            // io_uring isn't on the test classpath, so the choice comes down to epoll, kqueue, or NIO
+            if (Epoll.isAvailable()) {
+                assertTrue(eventLoopGroup instanceof EpollEventLoopGroup);
+            } else if (KQueue.isAvailable()) {
+                assertTrue(eventLoopGroup instanceof KQueueEventLoopGroup);
+            } else {
+                assertTrue(eventLoopGroup instanceof NioEventLoopGroup);
+            }
+        } finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+}
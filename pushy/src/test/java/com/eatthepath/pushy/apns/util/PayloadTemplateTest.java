@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadTemplateTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Alice", "", "\"Quoted\" / back\\slash\n\t\u0001", "Zoë 🎉 日本", "${name}" })
+    void testRender(final String name) {
+        final String message = "Your order has shipped.";
+
+        final PayloadTemplate template = buildTestPayload(PayloadTemplate.placeholder("name"), PayloadTemplate.placeholder("message"))
+                .buildTemplate("name", "message");
+
+        final String expectedPayload = buildTestPayload(name, message).build();
+
+        assertEquals(2, template.getVariableCount());
+        assertEquals(expectedPayload.getBytes(StandardCharsets.UTF_8).length, template.getRenderedLength(name, message));
+        assertEquals(expectedPayload, new String(template.render(name, message), StandardCharsets.UTF_8));
+
+        final ByteBuf buffer = Unpooled.buffer(1);
+
+        try {
+            buffer.writeByte('x');
+
+            assertEquals(template.getRenderedLength(name, message), template.render(buffer, name, message));
+            assertEquals('x', buffer.readByte());
+            assertEquals(expectedPayload, buffer.toString(StandardCharsets.UTF_8));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    void testRenderRepeatedAndUnknownPlaceholders() {
+        final PayloadTemplate template = new ApnsPayloadBuilder()
+                .setAlertBody("${name}, ${name}! ${unknown} ${")
+                .buildTemplate("name");
+
+        assertEquals(new ApnsPayloadBuilder().setAlertBody("Hi, Hi! ${unknown} ${").build(),
+                new String(template.render("Hi"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRenderWithoutVariables() {
+        final ApnsPayloadBuilder builder = new ApnsPayloadBuilder().setAlertBody("Hello.");
+
+        assertEquals(builder.build(), new String(builder.buildTemplate().render(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRenderWrongValueCount() {
+        final PayloadTemplate template = new ApnsPayloadBuilder()
+                .setAlertBody(PayloadTemplate.placeholder("name"))
+                .buildTemplate("name");
+
+        assertThrows(IllegalArgumentException.class, template::render);
+        assertThrows(IllegalArgumentException.class, () -> template.render("a", "b"));
+        assertThrows(NullPointerException.class, () -> template.render((String) null));
+    }
+
+    @Test
+    void testBuildTemplateIllegalVariables() {
+        final ApnsPayloadBuilder builder = new ApnsPayloadBuilder().setAlertBody(PayloadTemplate.placeholder("name"));
+
+        assertThrows(IllegalArgumentException.class, () -> builder.buildTemplate("name", "name"));
+        assertThrows(IllegalArgumentException.class, () -> builder.buildTemplate("name", "missing"));
+        assertThrows(IllegalArgumentException.class, () -> builder.buildTemplate("na/me"));
+        assertThrows(IllegalArgumentException.class, () -> PayloadTemplate.placeholder(""));
+    }
+
+    private static ApnsPayloadBuilder buildTestPayload(final String name, final String message) {
+        return new ApnsPayloadBuilder()
+                .setAlertTitle("Hello, " + name + "!")
+                .setAlertBody(message)
+                .setBadgeNumber(3)
+                .addCustomProperty("recipient", name);
+    }
+}
@@ -199,4 +199,29 @@ public class SimpleApnsPushNotificationTest {
         assertEquals(collapseId, pushNotification.getCollapseId());
         assertEquals(apnsId, pushNotification.getApnsId());
     }
+
+    @Test
+    void testSimpleApnsPushNotificationDeviceTokenTopicPayload() {
+        final DeviceToken deviceToken = DeviceToken.fromHexString("ABCDEF0123");
+        final String topic = "test-topic";
+        final String payload = "{\"test\": true}";
+
+        final SimpleApnsPushNotification pushNotification =
+                SimpleApnsPushNotification.forDeviceToken(deviceToken, topic, payload);
+
+        assertEquals("abcdef0123", pushNotification.getToken());
+        assertEquals(deviceToken, pushNotification.getDeviceToken());
+        assertEquals(topic, pushNotification.getTopic());
+        assertEquals(payload, pushNotification.getPayload());
+        assertEquals(DeliveryPriority.IMMEDIATE, pushNotification.getPriority());
+
+        assertEquals(new SimpleApnsPushNotification("abcdef0123", topic, payload, pushNotification.getExpiration()),
+                pushNotification);
+    }
+
+    @Test
+    void testSimpleApnsPushNotificationNullDeviceToken() {
+        assertThrows(NullPointerException.class,
+                () -> SimpleApnsPushNotification.forDeviceToken(null, "topic", "payload"));
+    }
 }
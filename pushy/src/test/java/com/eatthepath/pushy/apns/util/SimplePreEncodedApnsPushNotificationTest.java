@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Jon Chambers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eatthepath.pushy.apns.util;
+
+import com.eatthepath.pushy.apns.DeliveryPriority;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimplePreEncodedApnsPushNotificationTest {
+
+    @Test
+    void testSimplePreEncodedApnsPushNotificationTokenTopicPayload() {
+        final String token = "test-token";
+        final String topic = "test-topic";
+        final String payload = "{\"test\": \"✓\"}";
+
+        final Instant now = Instant.now();
+
+        final SimplePreEncodedApnsPushNotification pushNotification =
+                new SimplePreEncodedApnsPushNotification(token, topic, payload.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(token, pushNotification.getToken());
+        assertEquals(topic, pushNotification.getTopic());
+        assertEquals(payload, pushNotification.getPayload());
+        assertEquals(Unpooled.wrappedBuffer(payload.getBytes(StandardCharsets.UTF_8)), pushNotification.getEncodedPayload());
+        assertTrue(pushNotification.getExpiration().isAfter(now));
+        assertEquals(DeliveryPriority.IMMEDIATE, pushNotification.getPriority());
+        assertNull(pushNotification.getPushType());
+        assertNull(pushNotification.getCollapseId());
+        assertNull(pushNotification.getApnsId());
+    }
+
+    @Test
+    void testSimplePreEncodedApnsPushNotificationSharedPayload() {
+        final ByteBuf payload = Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8);
+
+        try {
+            final SimplePreEncodedApnsPushNotification firstNotification =
+                    new SimplePreEncodedApnsPushNotification("first-token", "test-topic", payload);
+
+            final SimplePreEncodedApnsPushNotification secondNotification =
+                    new SimplePreEncodedApnsPushNotification("second-token", "test-topic", payload);
+
+            assertSame(firstNotification.getEncodedPayload(), secondNotification.getEncodedPayload());
+            assertEquals(1, payload.refCnt(), "Constructing notifications should not change the payload's reference count.");
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Test
+    void testSimplePreEncodedApnsPushNotificationNullPayload() {
+        assertThrows(NullPointerException.class,
+                () -> new SimplePreEncodedApnsPushNotification("token", "topic", (ByteBuf) null));
+
+        assertThrows(NullPointerException.class,
+                () -> new SimplePreEncodedApnsPushNotification("token", "topic", (byte[]) null));
+    }
+}
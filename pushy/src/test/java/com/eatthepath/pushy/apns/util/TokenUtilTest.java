@@ -23,15 +23,27 @@
 package com.eatthepath.pushy.apns.util;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TokenUtilTest {
 
     @Test
     void testSanitizeTokenString() {
         assertEquals("ffff1234", TokenUtil.sanitizeTokenString("<ffff 1234>"));
+        assertEquals("ffFF1234", TokenUtil.sanitizeTokenString("ffFF 12\u00e934\n"));
+        assertEquals("", TokenUtil.sanitizeTokenString("<>"));
+        assertEquals("", TokenUtil.sanitizeTokenString(""));
+
+        final String cleanTokenString = "0123456789abcdefABCDEF";
+        assertSame(cleanTokenString, TokenUtil.sanitizeTokenString(cleanTokenString));
     }
 
     @SuppressWarnings({"ResultOfMethodCallIgnored", "ConstantConditions"})
@@ -39,4 +51,74 @@ public class TokenUtilTest {
     void testSanitizeNullTokenString() {
         assertThrows(NullPointerException.class, () -> TokenUtil.sanitizeTokenString(null));
     }
+
+    @Test
+    void testDecodeTokenString() {
+        assertArrayEquals(new byte[] { (byte) 0xff, (byte) 0xff, 0x12, 0x34 }, TokenUtil.decodeTokenString("<ffFF 1234>"));
+        assertArrayEquals(new byte[] { 0x0a, (byte) 0xbc }, TokenUtil.decodeTokenString("0abc"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "<>", "abc", "<ab c>" })
+    void testDecodeTokenStringIllegalArgument(final String tokenString) {
+        assertThrows(IllegalArgumentException.class, () -> TokenUtil.decodeTokenString(tokenString));
+    }
+
+    @Test
+    void testDecodeTokenStrings() {
+        final StringBuilder tokenStringBuilder = new StringBuilder();
+        final List<byte[]> expectedTokens = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            final byte[] token = new byte[32 + i];
+
+            for (int j = 0; j < token.length; j++) {
+                token[j] = (byte) (i * j);
+            }
+
+            expectedTokens.add(token);
+
+            tokenStringBuilder.append(i % 2 == 0 ? "<" : "");
+            tokenStringBuilder.append(i % 3 == 0 ? DeviceToken.fromBytes(token).toString().toUpperCase() : DeviceToken.fromBytes(token).toString());
+            tokenStringBuilder.append(i % 2 == 0 ? ">" : "");
+            tokenStringBuilder.append(i % 5 == 0 ? "\r\n" : "\n");
+
+            // Blank lines should be ignored
+            if (i % 7 == 0) {
+                tokenStringBuilder.append("\n");
+            }
+
+            // Lines with odd numbers of digits should be skipped
+            if (i % 11 == 0) {
+                tokenStringBuilder.append("abc\n");
+            }
+        }
+
+        // Remove the last newline; the last token should still be decoded
+        tokenStringBuilder.setLength(tokenStringBuilder.length() - 1);
+
+        {
+            final List<byte[]> tokens = new ArrayList<>();
+
+            assertEquals(10, TokenUtil.decodeTokenStrings(tokenStringBuilder, tokens::add));
+            assertTokensEqual(expectedTokens, tokens);
+        }
+
+        {
+            final List<byte[]> tokens = new ArrayList<>();
+            final ByteBuffer buffer = ByteBuffer.wrap(("\u00e9\n" + tokenStringBuilder).getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(10, TokenUtil.decodeTokenStrings(buffer, tokens::add));
+            assertTokensEqual(expectedTokens, tokens);
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    private static void assertTokensEqual(final List<byte[]> expectedTokens, final List<byte[]> tokens) {
+        assertEquals(expectedTokens.size(), tokens.size());
+
+        for (int i = 0; i < expectedTokens.size(); i++) {
+            assertArrayEquals(expectedTokens.get(i), tokens.get(i));
+        }
+    }
 }